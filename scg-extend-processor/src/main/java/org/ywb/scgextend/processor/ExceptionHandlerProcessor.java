@@ -0,0 +1,391 @@
+package org.ywb.scgextend.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * 编译期处理{@code @RestControllerAdvice}中的异常处理方法
+ * <p>
+ * 1.按ExceptionHandlerCore注册时的规则校验处理方法的签名，不合法时编译失败，而不是等到线上第一次出现异常：
+ * 处理方法必须是public的实例方法；参数只能是异常、{@code @RootCause} Throwable、ServerRequest、ServerWebExchange、
+ * ServerHttpRequest、HttpHeaders、Route，注解中没有指定异常类型时还可以是异常实现的接口；
+ * 注解中指定的每个异常类型都必须能传给方法的异常参数；参数不能声明为类型变量；
+ * 2.为每个advice类生成ExceptionHandlerTable，类名为advice类的二进制名加{@value #SUFFIX}，
+ * 运行时直接使用生成的表注册和调用处理方法，不再反射扫描。
+ * 只依赖注解和类型的全限定名，不依赖spring和scg-extend。
+ * 使用了组合注解(以{@code @ExceptionHandler}为元注解)的advice不生成，运行时仍然反射注册。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@SupportedAnnotationTypes({ExceptionHandlerProcessor.REST_CONTROLLER_ADVICE, ExceptionHandlerProcessor.EXCEPTION_HANDLER})
+public class ExceptionHandlerProcessor extends AbstractProcessor {
+
+    static final String REST_CONTROLLER_ADVICE = "org.springframework.web.bind.annotation.RestControllerAdvice";
+
+    static final String EXCEPTION_HANDLER = "org.springframework.web.bind.annotation.ExceptionHandler";
+
+    static final String ROOT_CAUSE = "org.ywb.scgextend.annotation.RootCause";
+
+    static final String TABLE = "org.ywb.scgextend.handler.ExceptionHandlerTable";
+
+    static final String SUFFIX = "_ExceptionHandlers";
+
+    /**
+     * 除异常外支持的参数类型，和HandlerArgumentResolver保持一致
+     */
+    private static final Set<String> REQUEST_ARGUMENT_TYPES = new HashSet<>(Arrays.asList(
+            "org.springframework.web.reactive.function.server.ServerRequest",
+            "org.springframework.web.server.ServerWebExchange",
+            "org.springframework.http.server.reactive.ServerHttpRequest",
+            "org.springframework.http.HttpHeaders",
+            "org.springframework.cloud.gateway.route.Route"));
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> advices = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                // 以@RestControllerAdvice为元注解的advice通过处理方法找到
+                TypeElement type = element.getKind() == ElementKind.METHOD
+                        ? (TypeElement) element.getEnclosingElement() : element instanceof TypeElement ? (TypeElement) element : null;
+                if (type != null && type.getKind() == ElementKind.CLASS && isAnnotated(type, REST_CONTROLLER_ADVICE, new HashSet<>())) {
+                    advices.add(type);
+                }
+            }
+        }
+        for (TypeElement advice : advices) {
+            if (generated.add(advice.getQualifiedName().toString())) {
+                this.process(advice);
+            }
+        }
+        // 不占用注解，spring-boot-configuration-processor等其他处理器照常处理
+        return false;
+    }
+
+    private void process(TypeElement advice) {
+        if (advice.getModifiers().contains(Modifier.ABSTRACT)) {
+            return;
+        }
+        List<HandlerMethod> handlers = new ArrayList<>();
+        boolean valid = true;
+        boolean composed = false;
+        for (ExecutableElement method : this.handlerMethods(advice)) {
+            AnnotationMirror exceptionHandler = this.exceptionHandler(method);
+            if (exceptionHandler == null) {
+                composed = true;
+                continue;
+            }
+            HandlerMethod handler = this.validate(method, exceptionHandler);
+            if (handler == null) {
+                valid = false;
+            } else {
+                handlers.add(handler);
+            }
+        }
+        if (!valid || handlers.isEmpty()) {
+            return;
+        }
+        if (composed) {
+            this.note(advice, "使用了组合注解，不生成异常处理方法表，运行时反射注册");
+            return;
+        }
+        if (!isAccessible(advice)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "advice类不能被同一个包中的类访问，不生成异常处理方法表，运行时反射注册", advice);
+            return;
+        }
+        this.write(advice, handlers);
+    }
+
+    /**
+     * advice类及其父类中的处理方法，被子类覆盖的方法使用子类的方法
+     */
+    private List<ExecutableElement> handlerMethods(TypeElement advice) {
+        Elements elements = processingEnv.getElementUtils();
+        List<ExecutableElement> declared = new ArrayList<>();
+        List<ExecutableElement> handlers = new ArrayList<>();
+        for (TypeElement type = advice; type != null; type = superclass(type)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                ExecutableElement effective = method;
+                for (ExecutableElement candidate : declared) {
+                    if (elements.overrides(candidate, method, advice)) {
+                        effective = candidate;
+                        break;
+                    }
+                }
+                declared.add(method);
+                if (!handlers.contains(effective) && isAnnotated(method, EXCEPTION_HANDLER, new HashSet<>())) {
+                    handlers.add(effective);
+                }
+            }
+        }
+        return handlers;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+    }
+
+    /**
+     * 直接标注的{@code @ExceptionHandler}，被覆盖的方法上的注解同样生效
+     *
+     * @return 只有组合注解时返回null
+     */
+    private AnnotationMirror exceptionHandler(ExecutableElement method) {
+        Elements elements = processingEnv.getElementUtils();
+        TypeElement owner = (TypeElement) method.getEnclosingElement();
+        for (TypeElement type = owner; type != null; type = superclass(type)) {
+            for (ExecutableElement candidate : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                if (candidate.equals(method) || elements.overrides(method, candidate, owner)) {
+                    AnnotationMirror mirror = findAnnotation(candidate, EXCEPTION_HANDLER);
+                    if (mirror != null) {
+                        return mirror;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 校验处理方法
+     *
+     * @return 不合法时返回null，错误已经输出
+     */
+    private HandlerMethod validate(ExecutableElement method, AnnotationMirror exceptionHandler) {
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror throwable = processingEnv.getElementUtils().getTypeElement(Throwable.class.getName()).asType();
+        List<TypeMirror> handledTypes = this.annotationValue(exceptionHandler);
+        boolean inferred = handledTypes.isEmpty();
+        boolean valid = true;
+        if (!method.getModifiers().contains(Modifier.PUBLIC)) {
+            this.error(method, "异常处理方法必须是public的");
+            valid = false;
+        }
+        if (method.getModifiers().contains(Modifier.STATIC)) {
+            this.error(method, "异常处理方法不能是static的");
+            valid = false;
+        }
+        List<? extends VariableElement> parameters = method.getParameters();
+        ArgumentKind[] kinds = new ArgumentKind[parameters.size()];
+        List<TypeMirror> exceptionParameters = new ArrayList<>(1);
+        for (int i = 0; i < kinds.length; i++) {
+            VariableElement parameter = parameters.get(i);
+            if (parameter.asType().getKind() == TypeKind.TYPEVAR) {
+                // 生成的代码按参数声明的类型转换，类型变量没有对应的类
+                this.error(parameter, "异常处理方法的参数不能声明为类型变量：" + parameter.asType());
+                valid = false;
+                continue;
+            }
+            TypeMirror type = types.erasure(parameter.asType());
+            boolean rootCause = findAnnotation(parameter, ROOT_CAUSE) != null;
+            Element element = types.asElement(type);
+            if (rootCause && types.isAssignable(type, throwable) && !types.isSameType(type, throwable)) {
+                // 异常链最底层的原因可能是任意异常，声明成更窄的类型运行时会类型转换失败
+                this.error(parameter, "@RootCause参数的类型只能是Throwable：" + type);
+                valid = false;
+                continue;
+            } else if (types.isAssignable(type, throwable)) {
+                kinds[i] = rootCause ? ArgumentKind.ROOT_CAUSE : ArgumentKind.EXCEPTION;
+            } else if (rootCause) {
+                this.error(parameter, "@RootCause只能标注在异常参数上");
+                valid = false;
+                continue;
+            } else if (element instanceof TypeElement && REQUEST_ARGUMENT_TYPES.contains(((TypeElement) element).getQualifiedName().toString())) {
+                kinds[i] = ArgumentKind.REQUEST;
+            } else if (element != null && element.getKind() == ElementKind.INTERFACE && inferred) {
+                // 异常实现的接口，只能用于由参数推断处理类型的方法
+                kinds[i] = ArgumentKind.EXCEPTION;
+            } else {
+                this.error(parameter, "异常处理方法不支持的参数类型：" + type);
+                valid = false;
+                continue;
+            }
+            if (kinds[i] == ArgumentKind.EXCEPTION) {
+                exceptionParameters.add(type);
+            }
+        }
+        if (!valid) {
+            return null;
+        }
+        if (inferred) {
+            if (exceptionParameters.isEmpty()) {
+                this.error(method, "无法确定异常处理方法处理的异常类型：注解中没有指定，方法也没有异常参数");
+                return null;
+            }
+            handledTypes = exceptionParameters;
+        }
+        // 同一个异常会传给所有的异常参数，处理的每个异常类型都必须能赋值给每个异常参数，否则运行时类型转换失败
+        for (TypeMirror handledType : handledTypes) {
+            for (TypeMirror parameterType : exceptionParameters) {
+                if (!types.isAssignable(handledType, parameterType)) {
+                    this.error(method, "处理的异常类型" + handledType + "不能传给" + parameterType + "类型的参数");
+                    valid = false;
+                }
+            }
+        }
+        return valid ? new HandlerMethod(method, kinds, handledTypes) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TypeMirror> annotationValue(AnnotationMirror annotation) {
+        List<TypeMirror> result = new ArrayList<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                for (AnnotationValue value : (List<? extends AnnotationValue>) entry.getValue().getValue()) {
+                    result.add((TypeMirror) value.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    private void write(TypeElement advice, List<HandlerMethod> handlers) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(advice).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(advice).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+        String adviceName = advice.getQualifiedName().toString();
+        StringBuilder source = new StringBuilder(1024);
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * {@link ").append(adviceName).append("}的异常处理方法表\n")
+                .append(" * 由").append(ExceptionHandlerProcessor.class.getName()).append("生成，不要修改\n")
+                .append(" */\n")
+                .append("public final class ").append(simpleName).append(" implements ").append(TABLE).append(" {\n\n")
+                .append("    @Override\n")
+                .append("    public java.util.List<").append(TABLE).append(".Entry> entries() {\n")
+                .append("        return java.util.Arrays.asList(");
+        for (int h = 0; h < handlers.size(); h++) {
+            HandlerMethod handler = handlers.get(h);
+            List<? extends VariableElement> parameters = handler.method.getParameters();
+            source.append(h == 0 ? "\n" : ",\n")
+                    .append("                new ").append(TABLE).append(".Entry(\"").append(handler.method.getSimpleName()).append("\",\n")
+                    .append("                        new Class<?>[]{");
+            for (int i = 0; i < parameters.size(); i++) {
+                source.append(i == 0 ? "" : ", ").append(this.typeName(parameters.get(i).asType())).append(".class");
+            }
+            source.append("},\n                        new Class<?>[]{");
+            for (int i = 0; i < handler.handledTypes.size(); i++) {
+                source.append(i == 0 ? "" : ", ").append(this.typeName(handler.handledTypes.get(i))).append(".class");
+            }
+            source.append("},\n                        (advice, e, args) -> ((").append(adviceName).append(") advice).")
+                    .append(handler.method.getSimpleName()).append("(");
+            // 只有一个异常参数时直接传入异常，和ExceptionHandlerCore的调用方式对应
+            boolean single = handler.kinds.length == 1 && handler.kinds[0] == ArgumentKind.EXCEPTION;
+            for (int i = 0; i < parameters.size(); i++) {
+                source.append(i == 0 ? "" : ", ").append("(").append(this.typeName(parameters.get(i).asType())).append(") ")
+                        .append(single ? "e" : "args[" + i + "]");
+            }
+            source.append("))");
+        }
+        source.append(");\n    }\n}\n");
+        String tableName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(tableName, advice).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            this.error(advice, "生成异常处理方法表失败：" + e);
+        }
+    }
+
+    /**
+     * 源码中使用的类型名，支持的参数类型都是类或接口，不带泛型参数和类型注解
+     */
+    private String typeName(TypeMirror type) {
+        return ((TypeElement) processingEnv.getTypeUtils().asElement(type)).getQualifiedName().toString();
+    }
+
+    /**
+     * 生成的类在advice所在的包中，advice及其外部类都不能是private的，内部类必须是static的
+     */
+    private static boolean isAccessible(TypeElement advice) {
+        for (Element element = advice; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)
+                    || (element.getEnclosingElement() instanceof TypeElement && !modifiers.contains(Modifier.STATIC))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 直接标注或者通过元注解标注
+     */
+    private static boolean isAnnotated(Element element, String annotationName, Set<String> visited) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            String name = annotationType.getQualifiedName().toString();
+            if (name.equals(annotationName)) {
+                return true;
+            }
+            if (!name.startsWith("java.lang.annotation.") && visited.add(name) && isAnnotated(annotationType, annotationName, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private void note(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+    }
+
+    private enum ArgumentKind {
+        EXCEPTION, ROOT_CAUSE, REQUEST
+    }
+
+    private static final class HandlerMethod {
+
+        final ExecutableElement method;
+
+        final ArgumentKind[] kinds;
+
+        final List<TypeMirror> handledTypes;
+
+        HandlerMethod(ExecutableElement method, ArgumentKind[] kinds, List<TypeMirror> handledTypes) {
+            this.method = method;
+            this.kinds = kinds;
+            this.handledTypes = handledTypes;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.ywb.scgextend.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.*;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 在内存中编译advice源码，spring和scg-extend中用到的类型以同名的桩代替
+ */
+class ExceptionHandlerProcessorTests {
+
+    private static final Map<String, String> STUBS = new LinkedHashMap<>();
+
+    static {
+        STUBS.put("org.springframework.web.bind.annotation.ExceptionHandler",
+                "package org.springframework.web.bind.annotation;\n"
+                        + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                        + "public @interface ExceptionHandler { Class<? extends Throwable>[] value() default {}; }");
+        STUBS.put("org.springframework.web.bind.annotation.RestControllerAdvice",
+                "package org.springframework.web.bind.annotation;\n"
+                        + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                        + "public @interface RestControllerAdvice {}");
+        STUBS.put("org.ywb.scgextend.annotation.RootCause",
+                "package org.ywb.scgextend.annotation;\n"
+                        + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                        + "public @interface RootCause {}");
+        STUBS.put("org.springframework.web.server.ServerWebExchange",
+                "package org.springframework.web.server;\npublic interface ServerWebExchange {}");
+        STUBS.put("org.ywb.scgextend.handler.ExceptionHandlerTable",
+                "package org.ywb.scgextend.handler;\n"
+                        + "public interface ExceptionHandlerTable {\n"
+                        + "  java.util.List<Entry> entries();\n"
+                        + "  final class Entry {\n"
+                        + "    public final String methodName; public final Class<?>[] parameterTypes; public final Class<?>[] exceptionTypes; public final Invoker invoker;\n"
+                        + "    public Entry(String m, Class<?>[] p, Class<?>[] e, Invoker i) { methodName = m; parameterTypes = p; exceptionTypes = e; invoker = i; }\n"
+                        + "  }\n"
+                        + "  interface Invoker { Object invoke(Object advice, Throwable throwable, Object[] args) throws Throwable; }\n"
+                        + "}");
+    }
+
+    @TempDir
+    Path output;
+
+    @Test
+    void generateTableForValidAdvice() throws Exception {
+        Result result = compile("demo.DemoAdvice",
+                "package demo;\n"
+                        + "import org.springframework.web.bind.annotation.*;\n"
+                        + "import org.springframework.web.server.ServerWebExchange;\n"
+                        + "import org.ywb.scgextend.annotation.RootCause;\n"
+                        + "@RestControllerAdvice\n"
+                        + "public class DemoAdvice {\n"
+                        + "  @ExceptionHandler({IllegalStateException.class, UnsupportedOperationException.class})\n"
+                        + "  public String handler(RuntimeException e) { return \"runtime:\" + e.getMessage(); }\n"
+                        + "  @ExceptionHandler\n"
+                        + "  public String handler(ServerWebExchange exchange, java.io.UncheckedIOException e, @RootCause Throwable cause) {\n"
+                        + "    return \"io:\" + cause.getMessage();\n"
+                        + "  }\n"
+                        + "  public String notHandler(String value) { return value; }\n"
+                        + "}");
+
+        assertTrue(result.success, result.diagnostics);
+        Object table = result.newInstance("demo.DemoAdvice" + ExceptionHandlerProcessor.SUFFIX);
+        List<?> entries = (List<?>) table.getClass().getMethod("entries").invoke(table);
+        assertEquals(2, entries.size());
+
+        Object advice = result.newInstance("demo.DemoAdvice");
+        Object first = entries.get(0);
+        assertEquals("handler", field(first, "methodName"));
+        assertEquals(2, ((Class<?>[]) field(first, "exceptionTypes")).length);
+        assertEquals("runtime:state", invoke(first, advice, new IllegalStateException("state"), null));
+
+        Object second = entries.get(1);
+        assertArrayEquals(new Class<?>[]{java.io.UncheckedIOException.class}, (Class<?>[]) field(second, "exceptionTypes"));
+        java.io.UncheckedIOException exception = new java.io.UncheckedIOException(new java.io.IOException("disk"));
+        assertEquals("io:disk", invoke(second, advice, exception, new Object[]{null, exception, exception.getCause()}));
+    }
+
+    @Test
+    void rejectInvalidSignatures() throws Exception {
+        Result result = compile("demo.InvalidAdvice",
+                "package demo;\n"
+                        + "import org.springframework.web.bind.annotation.*;\n"
+                        + "import org.ywb.scgextend.annotation.RootCause;\n"
+                        + "@RestControllerAdvice\n"
+                        + "public class InvalidAdvice {\n"
+                        + "  @ExceptionHandler(IllegalStateException.class)\n"
+                        + "  public String unsupported(IllegalStateException e, String value) { return value; }\n"
+                        + "  @ExceptionHandler(java.io.IOException.class)\n"
+                        + "  public String narrow(java.net.ConnectException e) { return null; }\n"
+                        + "  @ExceptionHandler\n"
+                        + "  public String noException(@RootCause String value) { return value; }\n"
+                        + "  @ExceptionHandler(IllegalStateException.class)\n"
+                        + "  public String narrowCause(IllegalStateException e, @RootCause java.io.IOException cause) { return null; }\n"
+                        + "  @ExceptionHandler(IllegalStateException.class)\n"
+                        + "  String notPublic(IllegalStateException e) { return null; }\n"
+                        + "  @ExceptionHandler(IllegalStateException.class)\n"
+                        + "  public <T extends Throwable> String typeVariable(T e) { return null; }\n"
+                        + "}");
+
+        assertFalse(result.success);
+        assertTrue(result.diagnostics.contains("不支持的参数类型：java.lang.String"), result.diagnostics);
+        assertTrue(result.diagnostics.contains("java.io.IOException不能传给java.net.ConnectException"), result.diagnostics);
+        assertTrue(result.diagnostics.contains("@RootCause只能标注在异常参数上"), result.diagnostics);
+        assertTrue(result.diagnostics.contains("@RootCause参数的类型只能是Throwable：java.io.IOException"), result.diagnostics);
+        assertTrue(result.diagnostics.contains("必须是public的"), result.diagnostics);
+        assertTrue(result.diagnostics.contains("参数不能声明为类型变量：T"), result.diagnostics);
+        assertFalse(Files.exists(output.resolve("demo/InvalidAdvice" + ExceptionHandlerProcessor.SUFFIX + ".java")));
+    }
+
+    private Result compile(String className, String source) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<JavaFileObject> sources = new ArrayList<>();
+        STUBS.forEach((name, stub) -> sources.add(source(name, stub)));
+        sources.add(source(className, source));
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(output.toFile()));
+            fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, Collections.singletonList(output.toFile()));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-encoding", "UTF-8"), null, sources);
+            task.setProcessors(Collections.singletonList(new ExceptionHandlerProcessor()));
+            boolean success = task.call();
+            String messages = diagnostics.getDiagnostics().stream()
+                    .map(diagnostic -> diagnostic.getKind() + ": " + diagnostic.getMessage(Locale.ROOT))
+                    .collect(Collectors.joining("\n"));
+            return new Result(success, messages, output.toFile());
+        }
+    }
+
+    private static JavaFileObject source(String className, String content) {
+        URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return content;
+            }
+        };
+    }
+
+    private static Object field(Object entry, String name) throws Exception {
+        return entry.getClass().getField(name).get(entry);
+    }
+
+    private static Object invoke(Object entry, Object advice, Throwable throwable, Object[] args) throws Exception {
+        Object invoker = field(entry, "invoker");
+        Method invoke = invoker.getClass().getInterfaces()[0].getMethod("invoke", Object.class, Throwable.class, Object[].class);
+        invoke.setAccessible(true);
+        return invoke.invoke(invoker, advice, throwable, args);
+    }
+
+    private static final class Result {
+
+        final boolean success;
+
+        final String diagnostics;
+
+        final URLClassLoader classLoader;
+
+        Result(boolean success, String diagnostics, File classes) throws Exception {
+            this.success = success;
+            this.diagnostics = diagnostics;
+            this.classLoader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader());
+        }
+
+        Object newInstance(String className) throws Exception {
+            return classLoader.loadClass(className).getDeclaredConstructor().newInstance();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.ywb.scgextend.common;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 获取单例bean的开销
+ * contextByType/contextByName：直接通过{@link org.springframework.context.ApplicationContext#getBean}获取，原来的方式
+ * holderByType/holderByName：通过{@link SpringContextHolder}获取，命中缓存
+ * ref：持有{@link BeanRef}，请求路径上推荐的方式
+ * 容器中注册了{@link #BEANS}个bean，按类型查找时需要遍历
+ *
+ * @author yuwenbo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanLookupBenchmark {
+
+    private static final int BEANS = 200;
+
+    private GenericApplicationContext context;
+
+    private BeanRef<Target> ref;
+
+    @Setup
+    public void setup() {
+        context = new GenericApplicationContext();
+        for (int i = 0; i < BEANS; i++) {
+            context.registerBean("bean" + i, Object.class, Object::new);
+        }
+        context.registerBean("target", Target.class, Target::new);
+        context.refresh();
+        new SpringContextHolder().setApplicationContext(context);
+        ref = SpringContextHolder.ref(Target.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object contextByType() {
+        return context.getBean(Target.class);
+    }
+
+    @Benchmark
+    public Object contextByName() {
+        return context.getBean("target");
+    }
+
+    @Benchmark
+    public Object holderByType() {
+        return SpringContextHolder.getBean(Target.class);
+    }
+
+    @Benchmark
+    public Object holderByName() {
+        return SpringContextHolder.getBean("target");
+    }
+
+    @Benchmark
+    public Object ref() {
+        return ref.get();
+    }
+
+    public static class Target {
+    }
+}
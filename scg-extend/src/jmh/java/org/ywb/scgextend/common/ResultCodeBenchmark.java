@@ -0,0 +1,71 @@
+package org.ywb.scgextend.common;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ResultCode#getMsgByCode(String)}与{@link ResultCode#getCodeByMsg(String)}的基准测试
+ * 以及{@link ResultCode#of(String)}
+ * first/last分别对应枚举中第一个和最后一个常量，miss为不存在的值
+ *
+ * @author yuwenbo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultCodeBenchmark {
+
+    /**
+     * 使用新的字符串对象，避免和枚举中的常量是同一个引用
+     */
+    private String firstCode = new String(ResultCode.SUCCESS.getCode());
+
+    private String lastCode = new String(ResultCode.AMOUNT_CHANGE.getCode());
+
+    private String missCode = "99999";
+
+    private String firstMsg = new String(ResultCode.SUCCESS.getMessage());
+
+    private String lastMsg = new String(ResultCode.AMOUNT_CHANGE.getMessage());
+
+    private String missMsg = "不存在的描述";
+
+    @Benchmark
+    public String getMsgByCodeFirst() {
+        return ResultCode.getMsgByCode(firstCode);
+    }
+
+    @Benchmark
+    public String getMsgByCodeLast() {
+        return ResultCode.getMsgByCode(lastCode);
+    }
+
+    @Benchmark
+    public String getMsgByCodeMiss() {
+        return ResultCode.getMsgByCode(missCode);
+    }
+
+    @Benchmark
+    public ResultCode ofLast() {
+        return ResultCode.of(lastCode);
+    }
+
+    @Benchmark
+    public String getCodeByMsgFirst() {
+        return ResultCode.getCodeByMsg(firstMsg);
+    }
+
+    @Benchmark
+    public String getCodeByMsgLast() {
+        return ResultCode.getCodeByMsg(lastMsg);
+    }
+
+    @Benchmark
+    public String getCodeByMsgMiss() {
+        return ResultCode.getCodeByMsg(missMsg);
+    }
+}
@@ -0,0 +1,50 @@
+package org.ywb.scgextend.event;
+
+import org.openjdk.jmh.annotations.*;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.exceptions.GatewayException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ErrorEventRecorder#record}在多个请求线程同时记录时的吞吐量
+ * 后台线程同时写出到临时目录中的事件文件，缓冲区满时丢弃的事件也计入吞吐量
+ *
+ * @author yuwenbo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ErrorEventRecorderBenchmark {
+
+    private ErrorEventRecorder recorder;
+
+    private final String code = ResultCode.USER_NOT_LOGIN.getCode();
+
+    @Setup
+    public void setup() throws Exception {
+        Path directory = Files.createTempDirectory("error-events");
+        ErrorEventProperties properties = new ErrorEventProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setMaxSegments(2);
+        recorder = new ErrorEventRecorder(properties);
+        recorder.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        recorder.stop();
+    }
+
+    @Benchmark
+    public void record() {
+        recorder.record("user", GatewayException.class, code, 200, 1_000_000);
+    }
+}
@@ -0,0 +1,85 @@
+package org.ywb.scgextend.handler;
+
+import org.openjdk.jmh.annotations.*;
+import org.ywb.scgextend.advice.GlobalExceptionHandlerAdvice;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.exceptions.GatewayException;
+import org.ywb.scgextend.log.ErrorLogProperties;
+import org.ywb.scgextend.log.ErrorLogSampler;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ExceptionHandlerCore#handlerException(Throwable)}的基准测试
+ * shallow：异常类型直接命中处理方法
+ * deep：异常类型距离处理方法有8层父类
+ * uncached：每次都清空解析缓存，用于对比首次解析的开销
+ *
+ * @author yuwenbo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionHandlerCoreBenchmark {
+
+    private ExceptionHandlerCore handlerCore;
+
+    private Throwable shallow;
+
+    private Throwable deep;
+
+    @Setup
+    public void setup() {
+        handlerCore = new ExceptionHandlerCore();
+        handlerCore.registerAll(Collections.singletonList(new GlobalExceptionHandlerAdvice(new ErrorLogSampler(new ErrorLogProperties()))));
+        shallow = new GatewayException(ResultCode.USER_NOT_LOGIN);
+        deep = new Level8Exception();
+    }
+
+    @Benchmark
+    public Object shallowHierarchy() {
+        return handlerCore.handlerException(shallow);
+    }
+
+    @Benchmark
+    public Object deepHierarchy() {
+        return handlerCore.handlerException(deep);
+    }
+
+    @Benchmark
+    public Object deepHierarchyUncached() {
+        handlerCore.clearResolvedCache();
+        return handlerCore.handlerException(deep);
+    }
+
+    static class Level1Exception extends GatewayException {
+        Level1Exception() {
+            super(ResultCode.USER_TOKEN_TIMEOUT);
+        }
+    }
+
+    static class Level2Exception extends Level1Exception {
+    }
+
+    static class Level3Exception extends Level2Exception {
+    }
+
+    static class Level4Exception extends Level3Exception {
+    }
+
+    static class Level5Exception extends Level4Exception {
+    }
+
+    static class Level6Exception extends Level5Exception {
+    }
+
+    static class Level7Exception extends Level6Exception {
+    }
+
+    static class Level8Exception extends Level7Exception {
+    }
+}
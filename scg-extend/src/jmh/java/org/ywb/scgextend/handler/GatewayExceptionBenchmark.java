@@ -0,0 +1,80 @@
+package org.ywb.scgextend.handler;
+
+import org.openjdk.jmh.annotations.*;
+import org.ywb.scgextend.advice.GlobalExceptionHandlerAdvice;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.exceptions.GatewayException;
+import org.ywb.scgextend.log.ErrorLogProperties;
+import org.ywb.scgextend.log.ErrorLogSampler;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 鉴权拒绝(USER_NOT_LOGIN)的抛出加处理的吞吐量
+ * stackTrace：每次新建异常并收集异常栈，原来的方式
+ * stackless：每次新建异常，不收集异常栈
+ * shared：使用{@link GatewayException#of}返回的共享实例
+ * 抛出点位于{@link #DEPTH}层调用之下，模拟过滤器链中的调用深度，异常栈越深收集的开销越大
+ *
+ * @author yuwenbo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GatewayExceptionBenchmark {
+
+    private static final int DEPTH = 64;
+
+    private ExceptionHandlerCore handlerCore;
+
+    @Setup
+    public void setup() {
+        handlerCore = new ExceptionHandlerCore();
+        handlerCore.registerAll(Collections.singletonList(new GlobalExceptionHandlerAdvice(new ErrorLogSampler(new ErrorLogProperties()))));
+    }
+
+    @Benchmark
+    public Object stackTrace() {
+        return handlerCore.handlerException(reject(DEPTH, Mode.STACK_TRACE));
+    }
+
+    @Benchmark
+    public Object stackless() {
+        return handlerCore.handlerException(reject(DEPTH, Mode.STACKLESS));
+    }
+
+    @Benchmark
+    public Object shared() {
+        return handlerCore.handlerException(reject(DEPTH, Mode.SHARED));
+    }
+
+    /**
+     * 在DEPTH层调用之下抛出并由最近的一层捕获，和reactor的操作符捕获过滤器抛出的异常一样
+     */
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static GatewayException reject(int depth, Mode mode) {
+        if (depth > 0) {
+            return reject(depth - 1, mode);
+        }
+        try {
+            switch (mode) {
+                case STACK_TRACE:
+                    throw new GatewayException(ResultCode.USER_NOT_LOGIN.getCode(), ResultCode.USER_NOT_LOGIN.getMessage(), true);
+                case STACKLESS:
+                    throw new GatewayException(ResultCode.USER_NOT_LOGIN.getCode(), ResultCode.USER_NOT_LOGIN.getMessage(), false);
+                default:
+                    throw GatewayException.of(ResultCode.USER_NOT_LOGIN);
+            }
+        } catch (GatewayException e) {
+            return e;
+        }
+    }
+
+    private enum Mode {
+        STACK_TRACE, STACKLESS, SHARED
+    }
+}
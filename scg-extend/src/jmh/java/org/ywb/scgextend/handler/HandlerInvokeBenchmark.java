@@ -0,0 +1,62 @@
+package org.ywb.scgextend.handler;
+
+import org.openjdk.jmh.annotations.*;
+import org.ywb.scgextend.advice.GlobalExceptionHandlerAdvice;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.exceptions.GatewayException;
+import org.ywb.scgextend.log.ErrorLogProperties;
+import org.ywb.scgextend.log.ErrorLogSampler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异常处理方法调用方式对比：
+ * 反射{@link Method#invoke}、注册时绑定的{@link MethodHandle}以及编译期生成的{@link ExceptionHandlerTable.Invoker}
+ * generatedInvoke使用和scg-extend-processor生成的代码相同的lambda，不依赖处理器为测试代码生成的表
+ *
+ * @author yuwenbo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerInvokeBenchmark {
+
+    private GlobalExceptionHandlerAdvice advice;
+
+    private Method method;
+
+    private MethodHandle invoker;
+
+    private ExceptionHandlerTable.Invoker generated;
+
+    private Throwable throwable;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        advice = new GlobalExceptionHandlerAdvice(new ErrorLogSampler(new ErrorLogProperties()));
+        method = GlobalExceptionHandlerAdvice.class.getMethod("handler", GatewayException.class);
+        invoker = ExceptionHandlerCore.bindInvoker(method, advice);
+        generated = (target, e, args) -> ((GlobalExceptionHandlerAdvice) target).handler((GatewayException) e);
+        throwable = new GatewayException(ResultCode.USER_NOT_LOGIN);
+    }
+
+    @Benchmark
+    public Object reflectiveInvoke() throws Exception {
+        return method.invoke(advice, throwable);
+    }
+
+    @Benchmark
+    public Object methodHandleInvoke() throws Throwable {
+        return (Object) invoker.invokeExact(throwable);
+    }
+
+    @Benchmark
+    public Object generatedInvoke() throws Throwable {
+        return generated.invoke(advice, throwable, null);
+    }
+}
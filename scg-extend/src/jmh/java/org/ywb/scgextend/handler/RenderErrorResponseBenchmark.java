@@ -0,0 +1,112 @@
+package org.ywb.scgextend.handler;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.reactive.error.DefaultErrorAttributes;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.result.view.ViewResolver;
+import org.ywb.scgextend.advice.GlobalExceptionHandlerAdvice;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.common.ResultVO;
+import org.ywb.scgextend.exceptions.GatewayException;
+import org.ywb.scgextend.log.ErrorLogProperties;
+import org.ywb.scgextend.log.ErrorLogSampler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GlobalExceptionHandler#renderErrorResponse(ServerRequest)}的基准测试
+ * 包含处理方法调用以及{@link org.ywb.scgextend.common.ResultVO}序列化写出响应体的完整过程
+ * 每次调用都需要新的exchange，baseline记录了仅创建exchange的开销
+ * constant对应返回常量VO、直接写出缓存响应体的处理方法
+ *
+ * @author yuwenbo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderErrorResponseBenchmark {
+
+    private DefaultErrorAttributes errorAttributes;
+
+    private GlobalExceptionHandler exceptionHandler;
+
+    private ServerCodecConfigurer codecConfigurer;
+
+    private ServerResponse.Context context;
+
+    private Throwable error;
+
+    private Throwable constantError;
+
+    @Setup
+    public void setup() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+        handlerCore.registerAll(Arrays.asList(new GlobalExceptionHandlerAdvice(new ErrorLogSampler(new ErrorLogProperties())), new ConstantAdvice()));
+        errorAttributes = new DefaultErrorAttributes();
+        codecConfigurer = ServerCodecConfigurer.create();
+        exceptionHandler = GlobalExceptionHandlerFactory.create(handlerCore, errorAttributes, codecConfigurer);
+        context = new ServerResponse.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return codecConfigurer.getWriters();
+            }
+
+            @Override
+            public List<ViewResolver> viewResolvers() {
+                return Collections.emptyList();
+            }
+        };
+        error = new GatewayException(ResultCode.USER_NOT_LOGIN);
+        constantError = new IllegalStateException();
+    }
+
+    @Benchmark
+    public Object baseline() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/user/1"));
+    }
+
+    @Benchmark
+    public Object renderErrorResponse() {
+        return render(error);
+    }
+
+    @Benchmark
+    public Object renderConstantErrorResponse() {
+        return render(constantError);
+    }
+
+    private Object render(Throwable throwable) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/user/1"));
+        errorAttributes.storeErrorInformation(throwable, exchange);
+        ServerRequest request = ServerRequest.create(exchange, codecConfigurer.getReaders());
+        exceptionHandler.renderErrorResponse(request)
+                .flatMap(response -> response.writeTo(exchange, context))
+                .block();
+        return exchange.getResponse();
+    }
+
+    /**
+     * 返回常量VO且不打印日志的处理方法
+     */
+    public static class ConstantAdvice {
+
+        private static final ResultVO<Void> CONSTANT = ResultVO.constant(ResultCode.SERVICE_EXCEPTION);
+
+        @ExceptionHandler(IllegalStateException.class)
+        public ResultVO<Void> handler(IllegalStateException e) {
+            return CONSTANT;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.ywb.scgextend.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Hints;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.common.ResultVO;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ResultVOEncoder}与通用{@link Jackson2JsonEncoder}编码ResultVO的基准测试
+ * withoutData只有code、message，withData的data为一个map
+ * 使用-prof gc查看每次编码的内存分配
+ *
+ * @author yuwenbo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultVOEncoderBenchmark {
+
+    private static final ResolvableType TYPE = ResolvableType.forClass(ResultVO.class);
+
+    /**
+     * 关闭编码器的debug日志，和线上的日志级别一致
+     */
+    private static final Map<String, Object> HINTS = Hints.from(Hints.SUPPRESS_LOGGING_HINT, true);
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Jackson2JsonEncoder jacksonEncoder = new Jackson2JsonEncoder(objectMapper);
+
+    private final ResultVOEncoder resultVOEncoder = new ResultVOEncoder(objectMapper);
+
+    private final ResultVO<Object> withoutData = ResultVO.buildFailure(ResultCode.SERVICE_EXCEPTION);
+
+    private final ResultVO<Object> withData = ResultVO.buildFailure(ResultCode.PARAM_ERROR.getCode(), ResultCode.PARAM_ERROR.getMessage(),
+            Collections.singletonMap("field", "name"));
+
+    @Benchmark
+    public int jacksonWithoutData() {
+        return release(jacksonEncoder.encodeValue(withoutData, bufferFactory, TYPE, MediaType.APPLICATION_JSON, HINTS));
+    }
+
+    @Benchmark
+    public int resultVOWithoutData() {
+        return release(resultVOEncoder.encodeValue(withoutData, bufferFactory, TYPE, MediaType.APPLICATION_JSON, HINTS));
+    }
+
+    @Benchmark
+    public int jacksonWithData() {
+        return release(jacksonEncoder.encodeValue(withData, bufferFactory, TYPE, MediaType.APPLICATION_JSON, HINTS));
+    }
+
+    @Benchmark
+    public int resultVOWithData() {
+        return release(resultVOEncoder.encodeValue(withData, bufferFactory, TYPE, MediaType.APPLICATION_JSON, HINTS));
+    }
+
+    private static int release(DataBuffer buffer) {
+        int length = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return length;
+    }
+}
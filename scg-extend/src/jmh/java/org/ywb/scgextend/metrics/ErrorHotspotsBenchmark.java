@@ -0,0 +1,56 @@
+package org.ywb.scgextend.metrics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录一次异常到{@link ErrorHotspots}的开销
+ * hotKeys：路由和异常类型都已被跟踪，常见情况
+ * churn：每次都是新的路由，需要替换次数最少的key
+ * 多线程下运行：-t 8
+ *
+ * @author yuwenbo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorHotspotsBenchmark {
+
+    private static final String[] ROUTES = {"user", "order", "goods", "pay"};
+
+    private static final Class<?>[] EXCEPTIONS = {ConnectException.class, IOException.class, IllegalStateException.class};
+
+    private static final String[] CHURN_ROUTES = new String[1 << 16];
+
+    static {
+        for (int i = 0; i < CHURN_ROUTES.length; i++) {
+            CHURN_ROUTES[i] = "route-" + i;
+        }
+    }
+
+    private ErrorHotspots errorHotspots;
+
+    @Setup
+    public void setup() {
+        errorHotspots = new ErrorHotspots(new ErrorHotspotProperties());
+    }
+
+    @Benchmark
+    public void hotKeys() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        errorHotspots.record(ROUTES[random.nextInt(ROUTES.length)], EXCEPTIONS[random.nextInt(EXCEPTIONS.length)], 150_000);
+    }
+
+    @Benchmark
+    public void churn() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        errorHotspots.record(CHURN_ROUTES[random.nextInt(CHURN_ROUTES.length)], EXCEPTIONS[random.nextInt(EXCEPTIONS.length)], 150_000);
+    }
+}
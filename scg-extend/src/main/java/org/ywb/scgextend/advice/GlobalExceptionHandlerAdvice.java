@@ -0,0 +1,93 @@
+package org.ywb.scgextend.advice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
+import org.ywb.scgextend.annotation.RetryableError;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.common.ResultVO;
+import org.ywb.scgextend.exceptions.CircuitBreakerOpenException;
+import org.ywb.scgextend.exceptions.ConcurrencyLimitException;
+import org.ywb.scgextend.exceptions.GatewayException;
+import org.ywb.scgextend.handler.ExceptionHandlerCore;
+import org.ywb.scgextend.log.ErrorLogSampler;
+
+import java.net.ConnectException;
+
+import static org.ywb.scgextend.common.ResultCode.SERVICE_NOT_EXIST;
+
+
+/**
+ * @version v1.0.0
+ * <p>
+ * [注意！！！！]
+ * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ * 这个不是SpringMVC统一异常处理！！！
+ * 这个不是SpringMVC统一异常处理！！！
+ * 这个不是SpringMVC统一异常处理！！！
+ * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ * {具体说明详见：}
+ * {@link ExceptionHandlerCore}
+ * 一定要看！！！
+ * </p>
+ * @date 2019/9/10 15:55
+ */
+@RestControllerAdvice
+public class GlobalExceptionHandlerAdvice {
+
+    /**
+     * 内容固定的返回值声明为常量，响应体只序列化一次
+     */
+    private static final ResultVO<Void> NETWORK_ERROR = ResultVO.constant(ResultCode.SERVICE_OUT_TIME.getCode(), "网络异常,请稍候再试!");
+
+    private static final ResultVO<Void> SERVER_ERROR = ResultVO.constant(ResultCode.SERVICE_EXCEPTION.getCode(), "服务器异常");
+
+    private static final ResultVO<Void> SERVICE_BUSY = ResultVO.constant(ResultCode.SERVICE_BUSY);
+
+    private final ErrorLogSampler errorLogSampler;
+
+    public GlobalExceptionHandlerAdvice(ErrorLogSampler errorLogSampler) {
+        this.errorLogSampler = errorLogSampler;
+    }
+
+    /**
+     * 对{@link GatewayException#of}的共享实例返回{@link GatewayException#toResult()}，
+     * 每个共享实例只调用一次，之后直接复用处理结果，这里不能有日志等需要每次执行的副作用
+     */
+    @ExceptionHandler(GatewayException.class)
+    public ResultVO<Void> handler(GatewayException e) {
+        return e.toResult();
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResultVO<Void> handler(ResponseStatusException e) {
+        return ResultVO.buildFailure(SERVICE_NOT_EXIST.getCode(), e.getReason());
+    }
+
+    @ExceptionHandler(CircuitBreakerOpenException.class)
+    public ResultVO<Void> handler(CircuitBreakerOpenException e) {
+        return NETWORK_ERROR;
+    }
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(ConcurrencyLimitException.class)
+    public ResultVO<Void> handler(ConcurrencyLimitException e) {
+        return SERVICE_BUSY;
+    }
+
+    @RetryableError
+    @ExceptionHandler(ConnectException.class)
+    public ResultVO<Void> handler(ConnectException e) {
+        errorLogSampler.error(e);
+        return NETWORK_ERROR;
+    }
+
+    @ExceptionHandler(Throwable.class)
+    public ResultVO<Void> handler(Throwable e) {
+        errorLogSampler.error(e);
+        return SERVER_ERROR;
+    }
+
+}
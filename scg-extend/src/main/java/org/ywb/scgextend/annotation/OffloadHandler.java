@@ -0,0 +1,29 @@
+package org.ywb.scgextend.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 标注在异常处理方法(或advice类)上，处理方法不在netty的IO线程上执行，
+ * 而是在{@link reactor.core.scheduler.Schedulers#boundedElastic()}上执行，
+ * 适用于需要查询数据库、调用远程服务等耗时的处理方法，不会阻塞同一个event loop上的其他连接。
+ * 超过{@link #timeoutMillis()}没有返回时，响应{@link org.ywb.scgextend.common.ResultCode#SERVICE_EXCEPTION}。
+ * <code>
+ * *@OffloadHandler(timeoutMillis = 500)
+ * *@ExceptionHandler(AuditException.class)
+ * public ResultVO handler(AuditException e) {
+ * ...
+ * }
+ * </code>
+ *
+ * @author yuwenbo
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OffloadHandler {
+
+    /**
+     * 处理方法的超时时间，单位毫秒
+     */
+    long timeoutMillis() default 3000;
+}
@@ -0,0 +1,23 @@
+package org.ywb.scgextend.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 标注在异常处理方法(或advice类)上，表示该方法处理的异常是上游的瞬时故障，
+ * 开启scg-extend.retry.enabled后，幂等请求在转发时遇到这些异常会先在网关内重试，
+ * 重试次数受全局的重试预算限制，重试仍然失败时才交给异常处理方法
+ * <code>
+ * *@RetryableError
+ * *@ExceptionHandler(ConnectException.class)
+ * public ResultVO handler(ConnectException e) {
+ * ...
+ * }
+ * </code>
+ *
+ * @author yuwenbo
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryableError {
+}
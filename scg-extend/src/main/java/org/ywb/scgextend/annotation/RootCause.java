@@ -0,0 +1,21 @@
+package org.ywb.scgextend.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 标注在异常处理方法的{@link Throwable}类型参数上，
+ * 传入的是异常链最底层的原因，而不是被处理的异常本身
+ * <code>
+ * *@ExceptionHandler(ReactiveException.class)
+ * public ResultVO handler(ReactiveException e, @RootCause Throwable cause) {
+ * ...
+ * }
+ * </code>
+ *
+ * @author yuwenbo
+ */
+@Documented
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RootCause {
+}
@@ -0,0 +1,111 @@
+package org.ywb.scgextend.common;
+
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
+import org.springframework.beans.factory.config.NamedBeanHolder;
+import org.springframework.context.ApplicationContext;
+
+import java.util.Objects;
+
+/**
+ * 预先解析的bean引用
+ * <p>
+ * 第一次{@link #get()}时从容器中解析，单例bean缓存在引用中，之后的调用只读取缓存，不再经过{@link ApplicationContext#getBean}；
+ * 容器刷新后{@link SpringContextHolder}递增代数，缓存随之失效，下一次{@link #get()}重新解析。
+ * 非单例(prototype、request等作用域)的bean不缓存，每次都从容器获取，和{@link ApplicationContext#getBean}的语义保持一致。
+ * 可以保存在过滤器的final字段中：
+ * <code>
+ * private static final BeanRef&lt;UserService&gt; USER_SERVICE = SpringContextHolder.ref(UserService.class);
+ * </code>
+ * </p>
+ *
+ * @author yuwenbo
+ */
+public final class BeanRef<T> {
+
+    private final Class<T> type;
+
+    /**
+     * 为null时按类型解析
+     */
+    private final String name;
+
+    private volatile Resolved<T> resolved;
+
+    BeanRef(Class<T> type, String name) {
+        this.type = Objects.requireNonNull(type);
+        this.name = name;
+    }
+
+    /**
+     * 获取bean，缓存有效时只有两次volatile读
+     *
+     * @return bean
+     */
+    public T get() {
+        Resolved<T> current = resolved;
+        if (current != null && current.generation == SpringContextHolder.generation()) {
+            return current.bean;
+        }
+        return this.resolve();
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    private T resolve() {
+        // 先读代数再解析，解析期间容器刷新时缓存的是旧代数，下一次get会重新解析
+        long generation = SpringContextHolder.generation();
+        ApplicationContext applicationContext = SpringContextHolder.getApplicationContext();
+        SpringContextHolder.countLookup();
+        T bean;
+        String beanName;
+        if (name != null) {
+            bean = applicationContext.getBean(name, type);
+            beanName = name;
+        } else {
+            NamedBeanHolder<T> holder = resolveNamedBean(applicationContext, type);
+            bean = holder.getBeanInstance();
+            beanName = holder.getBeanName();
+        }
+        if (applicationContext.isSingleton(beanName)) {
+            resolved = new Resolved<>(bean, generation);
+        }
+        return bean;
+    }
+
+    /**
+     * 按类型解析bean及其名称，当前容器没有时到父容器(如spring cloud的bootstrap容器)中查找，
+     * 和{@link ApplicationContext#getBean(Class)}的查找范围一致
+     */
+    private static <T> NamedBeanHolder<T> resolveNamedBean(ApplicationContext applicationContext, Class<T> type) {
+        try {
+            return applicationContext.getAutowireCapableBeanFactory().resolveNamedBean(type);
+        } catch (NoUniqueBeanDefinitionException e) {
+            throw e;
+        } catch (NoSuchBeanDefinitionException e) {
+            if (applicationContext.getParent() == null) {
+                throw e;
+            }
+            return resolveNamedBean(applicationContext.getParent(), type);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BeanRef(" + (name != null ? name : type.getName()) + ")";
+    }
+
+    private static final class Resolved<T> {
+
+        private final T bean;
+
+        private final long generation;
+
+        Resolved(T bean, long generation) {
+            this.bean = bean;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.ywb.scgextend.common;
+
+/**
+ * 响应状态码定义
+ * 内置的状态码见{@link ResultCode}，其他模块可以实现该接口定义自己的状态码，
+ * 并通过{@link ResultCode#register(IResultCode...)}注册后参与按code/message的查找
+ *
+ * @author yuwenbo
+ */
+public interface IResultCode {
+
+    /**
+     * 状态码
+     *
+     * @return code
+     */
+    String getCode();
+
+    /**
+     * 状态码描述
+     *
+     * @return message
+     */
+    String getMessage();
+}
@@ -0,0 +1,173 @@
+package org.ywb.scgextend.common;
+
+import com.google.common.collect.ImmutableMap;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+@Getter
+public enum ResultCode implements IResultCode {
+    /**
+     * 通用类
+     */
+    SUCCESS("00000", "成功"),
+    SYSTEM_ERROR("10000", "系统异常"),
+    /**
+     * 服务类
+     */
+    SERVICE_NOT_EXIST("10001", "服务不存在"),
+    SERVICE_OUT_TIME("10002", "服务调用超时"),
+    SERVICE_EXCEPTION("10003", "服务调用异常"),
+    SERVICE_BUSY("10004", "服务繁忙，请稍候再试"),
+    /**
+     * 用户类
+     */
+    USER_NOT_EXIST("20000", "用户不存在"),
+    USER_NOT_LOGIN("20001", "用户未登录"),
+    USER_PWD_ERROR("20002", "用户密码不正确"),
+    USER_ACCESS_DENIED("20003", "用户无访问权限"),
+    USER_PWD_NOT_SET("20004", "您尚未设置登录密码，可以切换快捷登录方式直接登录或通过忘记密码功能完成登录密码的设置。"),
+    USER_PASSWORD_EMPTY("21010", "密码为空"),
+    USER_PASSWORD_ERROR("21020", "密码格式错误"),
+    USER_TOKEN_TIMEOUT("21030", "token已过期，请重新登录"),
+    USER_TOKEN_REPEAT("21040", "异地登录"),
+    USER_ACCOUNT_ERROR("21050", "账户异常"),
+    USER_ACCOUNT_LOCK("21060", "账户被锁定"),
+    /**
+     * 参数类
+     */
+    PARAM_ERROR("30001", "参数异常"),
+    PARAM_REPEAT_SUBMIT("30002", "数据重复提交"),
+    PARAM_VALIDATOR_ERROR("30003", "验证码错误"),
+    PARAM_VALIDATOR_TIMEOUT("30004", "验证码已过期，请重新获取验证码"),
+    PARAM_WARMING("30006", "密码错误次数警告"),
+    /**
+     * DB类
+     */
+    INSERT_TABLE_ERROR("50001", "数据入库异常"),
+    AMOUNT_CHANGE("50002", "金额发生变化"),
+    ;
+
+    private String message;
+
+    private String code;
+
+    /**
+     * 按code和message建立的索引，在类初始化时构建一次，之后只读
+     */
+    private static final Map<String, ResultCode> CODE_INDEX;
+
+    private static final Map<String, ResultCode> MESSAGE_INDEX;
+
+    /**
+     * 其他模块注册的状态码索引，注册时整体替换（copy-on-write）
+     */
+    private static volatile Map<String, IResultCode> extCodeIndex = ImmutableMap.of();
+
+    private static volatile Map<String, IResultCode> extMessageIndex = ImmutableMap.of();
+
+    static {
+        Map<String, ResultCode> codeIndex = new LinkedHashMap<>();
+        Map<String, ResultCode> messageIndex = new LinkedHashMap<>();
+        for (ResultCode resultCode : values()) {
+            codeIndex.putIfAbsent(resultCode.code, resultCode);
+            messageIndex.putIfAbsent(resultCode.message, resultCode);
+        }
+        CODE_INDEX = ImmutableMap.copyOf(codeIndex);
+        MESSAGE_INDEX = ImmutableMap.copyOf(messageIndex);
+    }
+
+    ResultCode(String code, String message) {
+        this.message = message;
+        this.code = code;
+    }
+
+    @Override
+    public String getCode() {
+        return code;
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * 根据code获取内置的枚举常量
+     *
+     * @param code 状态码
+     * @return 对应的枚举，不存在时返回null
+     */
+    public static ResultCode of(String code) {
+        return CODE_INDEX.get(code);
+    }
+
+    /**
+     * 根据code获取状态码，包括其他模块注册的状态码
+     *
+     * @param code 状态码
+     * @return 对应的状态码，不存在时返回null
+     */
+    public static IResultCode lookup(String code) {
+        IResultCode resultCode = CODE_INDEX.get(code);
+        return resultCode != null ? resultCode : extCodeIndex.get(code);
+    }
+
+    public static String getCodeByMsg(String desc) {
+        IResultCode resultCode = MESSAGE_INDEX.get(desc);
+        if (resultCode == null) {
+            resultCode = extMessageIndex.get(desc);
+        }
+        return resultCode != null ? resultCode.getCode() : null;
+    }
+
+    public static String getMsgByCode(String code) {
+        IResultCode resultCode = lookup(code);
+        return resultCode != null ? resultCode.getMessage() : null;
+    }
+
+    /**
+     * 注册其他模块定义的状态码
+     * 一般在应用启动时调用，code不能和已有的状态码重复
+     *
+     * @param resultCodes 状态码
+     */
+    public static synchronized void register(IResultCode... resultCodes) {
+        Map<String, IResultCode> codeIndex = new LinkedHashMap<>(extCodeIndex);
+        Map<String, IResultCode> messageIndex = new LinkedHashMap<>(extMessageIndex);
+        for (IResultCode resultCode : resultCodes) {
+            Objects.requireNonNull(resultCode.getCode(), "code不能为null");
+            IResultCode exist = lookup(resultCode.getCode());
+            if (exist == null) {
+                exist = codeIndex.get(resultCode.getCode());
+            }
+            if (exist != null && exist != resultCode) {
+                throw new IllegalArgumentException("状态码重复：" + resultCode.getCode());
+            }
+            codeIndex.put(resultCode.getCode(), resultCode);
+            if (resultCode.getMessage() != null && !MESSAGE_INDEX.containsKey(resultCode.getMessage())) {
+                messageIndex.putIfAbsent(resultCode.getMessage(), resultCode);
+            }
+        }
+        extCodeIndex = ImmutableMap.copyOf(codeIndex);
+        extMessageIndex = ImmutableMap.copyOf(messageIndex);
+    }
+
+    /**
+     * 移除注册的状态码，只供测试使用，避免注册的状态码影响其他测试
+     *
+     * @param resultCodes 通过{@link #register(IResultCode...)}注册的状态码
+     */
+    static synchronized void unregister(IResultCode... resultCodes) {
+        Map<String, IResultCode> codeIndex = new LinkedHashMap<>(extCodeIndex);
+        Map<String, IResultCode> messageIndex = new LinkedHashMap<>(extMessageIndex);
+        for (IResultCode resultCode : resultCodes) {
+            codeIndex.remove(resultCode.getCode(), resultCode);
+            messageIndex.values().remove(resultCode);
+        }
+        extCodeIndex = ImmutableMap.copyOf(codeIndex);
+        extMessageIndex = ImmutableMap.copyOf(messageIndex);
+    }
+}
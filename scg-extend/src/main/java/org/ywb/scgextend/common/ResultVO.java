@@ -1,6 +1,7 @@
 package org.ywb.scgextend.common;
 
 import com.google.common.base.Strings;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.io.Serializable;
@@ -25,11 +26,53 @@ public class ResultVO<T> implements Serializable {
      */
     private T data;
 
+    /**
+     * 是否为常量对象，常量对象的内容不会变化，响应体可以只序列化一次
+     */
+    @Getter(AccessLevel.NONE)
+    private transient boolean constant;
+
     private ResultVO(String message, String code) {
         this.message = message;
         this.code = code;
     }
 
+    /**
+     * 创建内容固定的失败VO，一般声明为static final常量
+     * 作为异常处理方法的返回值时，响应体只会序列化一次并被缓存
+     *
+     * @param code    状态码
+     * @param message 响应信息描述
+     * @param <D>     data
+     * @return 常量VO
+     */
+    public static <D> ResultVO<D> constant(String code, String message) {
+        ResultVO<D> resultVO = new ResultVO<>(message, code);
+        resultVO.constant = true;
+        return resultVO;
+    }
+
+    /**
+     * 通过定义好的状态码创建内容固定的失败VO
+     *
+     * @param resultCode {@link ResultCode}或其他模块注册的{@link IResultCode}
+     * @param <D>        data
+     * @return 常量VO
+     */
+    public static <D> ResultVO<D> constant(IResultCode resultCode) {
+        return constant(resultCode.getCode(), resultCode.getMessage());
+    }
+
+    /**
+     * 是否为通过{@link #constant(String, String)}创建的常量VO
+     *
+     * @param resultVO resultVO
+     * @return boolean
+     */
+    public static boolean isConstant(ResultVO<?> resultVO) {
+        return Objects.nonNull(resultVO) && resultVO.constant;
+    }
+
     /**
      * 通过定义好的枚举创建VO
      *
@@ -42,14 +85,14 @@ public class ResultVO<T> implements Serializable {
     }
 
     /**
-     * 通过定义好的枚举创建VO
+     * 通过定义好的状态码创建VO
      *
-     * @param resultCode {@link ResultCode}
+     * @param resultCode {@link ResultCode}或其他模块注册的{@link IResultCode}
      * @param <D>        data
      * @return ResultVo create By Enum
      */
-    public static <D> ResultVO<D> buildFailure(ResultCode resultCode) {
-        return buildByEnum(resultCode);
+    public static <D> ResultVO<D> buildFailure(IResultCode resultCode) {
+        return new ResultVO<>(resultCode.getMessage(), resultCode.getCode());
     }
 
     public static <D> ResultVO<D> buildFailure(String code, String message) {
@@ -0,0 +1,183 @@
+package org.ywb.scgextend.common;
+
+import org.springframework.beans.BeansException;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 静态获取容器中的bean
+ * <p>
+ * {@link #getBean(Class)}、{@link #getBean(String)}通过{@link BeanRef}缓存解析结果，单例bean只在容器刷新后解析一次；
+ * 请求路径上建议直接持有{@link #ref(Class)}返回的引用，省去每次查找引用的开销。
+ * 实际访问容器的次数记录在{@link #lookupCount()}中，测试中可以据此发现请求路径上每次都访问容器的调用。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Component
+public class SpringContextHolder implements ApplicationContextAware {
+
+    private static final ClassValue<BeanRef<?>> TYPE_REFS = new ClassValue<BeanRef<?>>() {
+        @Override
+        protected BeanRef<?> computeValue(Class<?> type) {
+            return new BeanRef<>(type, null);
+        }
+    };
+
+    /**
+     * 按名称缓存的引用个数上限，超过后不再缓存新的名称，避免按任意名称查找时无限增长
+     */
+    private static final int MAX_NAMED_REFS = 256;
+
+    private static final ConcurrentMap<String, BeanRef<Object>> NAMED_REFS = new ConcurrentHashMap<>(16);
+
+    private static final LongAdder LOOKUPS = new LongAdder();
+
+    private static volatile ApplicationContext applicationContext;
+
+    /**
+     * 容器代数，容器替换或者刷新后递增，{@link BeanRef}的缓存随之失效
+     */
+    private static volatile long generation;
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        SpringContextHolder.applicationContext = applicationContext;
+        invalidate();
+    }
+
+    /**
+     * 容器刷新后bean可能被替换，丢弃所有缓存的解析结果
+     * 子容器(负载均衡、feign客户端等NamedContextFactory创建的容器)的刷新事件也会传播过来，只处理持有的容器
+     */
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        if (event.getApplicationContext() == applicationContext) {
+            invalidate();
+        }
+    }
+
+    /**
+     * 配置刷新后refresh作用域的bean被替换，丢弃所有缓存的解析结果
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefreshed() {
+        invalidate();
+    }
+
+    /**
+     * 使所有{@link BeanRef}的缓存失效
+     */
+    public static synchronized void invalidate() {
+        generation++;
+    }
+
+    public static ApplicationContext getApplicationContext() {
+        assertApplicationContext();
+        return applicationContext;
+    }
+
+    /**
+     * 按类型的bean引用，同一个类型返回同一个引用
+     *
+     * @param requiredType 实例类型
+     * @param <T>          T
+     * @return 引用
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanRef<T> ref(Class<T> requiredType) {
+        return (BeanRef<T>) TYPE_REFS.get(requiredType);
+    }
+
+    /**
+     * 按名称的bean引用
+     *
+     * @param beanName     实例名称
+     * @param requiredType 实例类型
+     * @param <T>          T
+     * @return 引用
+     */
+    public static <T> BeanRef<T> ref(String beanName, Class<T> requiredType) {
+        return new BeanRef<>(requiredType, beanName);
+    }
+
+    /**
+     * 通过实例类型获取实例
+     *
+     * @param requiredType 实例类型
+     * @param <T>          T
+     * @return T
+     */
+    public static <T> T getBean(Class<T> requiredType) {
+        return ref(requiredType).get();
+    }
+
+    /**
+     * 通过实例，名称获取实例
+     *
+     * @param beanName 实例名称
+     * @param <T>      T
+     * @return T
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T getBean(String beanName) {
+        BeanRef<Object> ref = NAMED_REFS.get(beanName);
+        if (ref != null) {
+            return (T) ref.get();
+        }
+        ref = ref(beanName, Object.class);
+        // 解析成功后才缓存，不存在的名称不会留在缓存中
+        Object bean = ref.get();
+        if (NAMED_REFS.size() < MAX_NAMED_REFS) {
+            NAMED_REFS.putIfAbsent(beanName, ref);
+        }
+        return (T) bean;
+    }
+
+    /**
+     * 通过类上的注解获取类
+     *
+     * @param annotation anno
+     * @return map
+     */
+    public static Map<String, Object> getBeansWithAnnotation(Class<? extends Annotation> annotation) {
+        assertApplicationContext();
+        countLookup();
+        return applicationContext.getBeansWithAnnotation(annotation);
+    }
+
+    /**
+     * 实际访问容器的次数，缓存命中不计入
+     * 测试中在处理请求前后各取一次，差值不为0说明请求路径上每次都在访问容器
+     *
+     * @return 次数
+     */
+    public static long lookupCount() {
+        return LOOKUPS.sum();
+    }
+
+    static long generation() {
+        return generation;
+    }
+
+    static void countLookup() {
+        LOOKUPS.increment();
+    }
+
+    private static void assertApplicationContext() {
+        if (SpringContextHolder.applicationContext == null) {
+            throw new RuntimeException("application Context属性为null,请检查是否注入了SpringContextHolder!");
+        }
+    }
+
+}
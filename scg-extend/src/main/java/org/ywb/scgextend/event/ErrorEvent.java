@@ -0,0 +1,53 @@
+package org.ywb.scgextend.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 从事件文件中读出的一条异常事件
+ *
+ * @author yuwenbo
+ */
+@Getter
+@ToString
+public final class ErrorEvent {
+
+    /**
+     * 时间戳(毫秒)
+     */
+    private final long timestamp;
+
+    /**
+     * 路由id，没有匹配到路由时为none
+     */
+    private final String routeId;
+
+    /**
+     * 异常类型的全限定名
+     */
+    private final String exception;
+
+    /**
+     * 返回的状态码，没有时为none
+     */
+    private final String code;
+
+    /**
+     * http状态码
+     */
+    private final int status;
+
+    /**
+     * 请求耗时(纳秒)，从进入网关到写出异常响应前
+     */
+    private final long latencyNanos;
+
+    ErrorEvent(long timestamp, String routeId, String exception, String code, int status, long latencyNanos) {
+        this.timestamp = timestamp;
+        this.routeId = routeId;
+        this.exception = exception;
+        this.code = code;
+        this.status = status;
+        this.latencyNanos = latencyNanos;
+    }
+}
@@ -0,0 +1,68 @@
+package org.ywb.scgextend.event;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * 事件中路由、异常类型、状态码的字典
+ * 值第一次出现时分配递增的id，之后只做一次map查找；id 0固定表示没有值
+ * 超过上限后的新值都使用{@link #OVERFLOW}，保证内存有界
+ *
+ * @author yuwenbo
+ */
+final class ErrorEventDictionary<K> {
+
+    static final int NONE = 0;
+
+    static final int OVERFLOW = 1;
+
+    private final Map<K, Integer> ids = new ConcurrentHashMap<>(64);
+
+    /**
+     * 按id排列的名称，只追加
+     */
+    private final CopyOnWriteArrayList<String> names = new CopyOnWriteArrayList<>();
+
+    private final Function<K, String> nameFunction;
+
+    private final int maxSize;
+
+    ErrorEventDictionary(Function<K, String> nameFunction, int maxSize) {
+        this.nameFunction = nameFunction;
+        this.maxSize = maxSize;
+        names.add("none");
+        names.add("other");
+    }
+
+    int idOf(K key) {
+        if (key == null) {
+            return NONE;
+        }
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        // 字典满了之后不再加锁，否则每个新值都要在请求线程上竞争锁
+        return names.size() >= maxSize ? OVERFLOW : this.assign(key);
+    }
+
+    private synchronized int assign(K key) {
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        if (names.size() >= maxSize) {
+            return OVERFLOW;
+        }
+        id = names.size();
+        names.add(nameFunction.apply(key));
+        ids.put(key, id);
+        return id;
+    }
+
+    String nameOf(int id) {
+        return names.get(id);
+    }
+}
@@ -0,0 +1,76 @@
+package org.ywb.scgextend.event;
+
+/**
+ * 事件文件的二进制格式，所有数字都是大端序
+ * <pre>
+ * 文件头(32字节)
+ *   0  int   魔数 0x53434745("SCGE")
+ *   4  short 版本
+ *   6  short 记录大小(32)
+ *   8  long  创建时间(毫秒)
+ *   16 16字节保留
+ * 记录(32字节对齐)，类型为0表示文件结束(未写入的部分都是0)
+ * 事件记录(32字节)
+ *   0  byte  类型 1
+ *   1  byte  保留
+ *   2  short http状态码
+ *   4  int   路由id
+ *   8  long  时间戳(毫秒)
+ *   16 long  请求耗时(纳秒)
+ *   24 int   异常类型id
+ *   28 int   状态码(ResultCode)id
+ * 字典记录(8字节 + 名称，补齐到32字节的整数倍)
+ *   0  byte  类型 2
+ *   1  byte  字典种类：1路由、2异常类型、3状态码
+ *   2  short 名称的UTF-8字节数，超过{@link #MAX_NAME_LENGTH}时截断
+ *   4  int   id
+ *   8  名称
+ * </pre>
+ * 每个文件开头重新写出用到的字典记录，单个文件可以独立读取。
+ *
+ * @author yuwenbo
+ */
+final class ErrorEventFormat {
+
+    static final int MAGIC = 0x53434745;
+
+    static final short VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+
+    static final int RECORD_SIZE = 32;
+
+    static final byte TYPE_END = 0;
+
+    static final byte TYPE_EVENT = 1;
+
+    static final byte TYPE_DICTIONARY = 2;
+
+    static final byte KIND_ROUTE = 1;
+
+    static final byte KIND_EXCEPTION = 2;
+
+    static final byte KIND_CODE = 3;
+
+    static final int DICTIONARY_HEADER_SIZE = 8;
+
+    /**
+     * 名称的最大字节数，单条字典记录最多256字节，文件中所有字典记录的大小有上限
+     */
+    static final int MAX_NAME_LENGTH = 248;
+
+    static final String FILE_PREFIX = "error-events-";
+
+    static final String FILE_SUFFIX = ".seg";
+
+    private ErrorEventFormat() {
+    }
+
+    /**
+     * 字典记录占用的字节数
+     */
+    static int dictionarySize(int nameLength) {
+        int size = DICTIONARY_HEADER_SIZE + nameLength;
+        return (size + RECORD_SIZE - 1) / RECORD_SIZE * RECORD_SIZE;
+    }
+}
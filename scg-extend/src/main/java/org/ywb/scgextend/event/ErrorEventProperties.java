@@ -0,0 +1,40 @@
+package org.ywb.scgextend.event;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 异常事件记录配置
+ *
+ * @author yuwenbo
+ */
+@Data
+@ConfigurationProperties(prefix = "scg-extend.error-event")
+public class ErrorEventProperties {
+
+    /**
+     * 是否开启，默认关闭
+     */
+    private boolean enabled = false;
+
+    /**
+     * 事件文件所在的目录
+     */
+    private String directory = "logs/error-events";
+
+    /**
+     * 环形缓冲区能容纳的事件数，向上取整为2的幂；后台线程来不及写出时新事件直接丢弃并计数
+     */
+    private int bufferSize = 65536;
+
+    /**
+     * 单个事件文件的大小，写满后切换到新文件；至少要能容纳所有字典记录，不能小于769KB
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 最多保留多少个事件文件，超出后删除最早的文件
+     */
+    private int maxSegments = 16;
+}
@@ -0,0 +1,203 @@
+package org.ywb.scgextend.event;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.ywb.scgextend.event.ErrorEventFormat.*;
+
+/**
+ * 读取{@link ErrorEventRecorder}写出的事件文件
+ * <p>
+ * 命令行用法，按 路由+异常类型+状态码+http状态码 汇总次数和请求耗时，按次数从多到少输出：
+ * <code>
+ * java -cp scg-extend.jar -Dloader.main=org.ywb.scgextend.event.ErrorEventReader
+ * org.springframework.boot.loader.PropertiesLauncher logs/error-events
+ * </code>
+ * 参数可以是目录或者单个事件文件；正在写入的文件也可以读取，读到未写入的部分时结束。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+public final class ErrorEventReader {
+
+    private ErrorEventReader() {
+    }
+
+    /**
+     * 读取目录中的所有事件文件，或者单个事件文件
+     *
+     * @param path     目录或文件
+     * @param consumer 按写入顺序接收事件
+     */
+    public static void read(Path path, Consumer<ErrorEvent> consumer) throws IOException {
+        if (Files.isDirectory(path)) {
+            for (Path segment : ErrorEventSegmentWriter.segments(path)) {
+                readSegment(segment, consumer);
+            }
+        } else {
+            readSegment(path, consumer);
+        }
+    }
+
+    private static void readSegment(Path segment, Consumer<ErrorEvent> consumer) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是异常事件文件：" + segment);
+        }
+        if (buffer.getShort(4) != VERSION) {
+            throw new IOException("不支持的事件文件版本" + buffer.getShort(4) + "：" + segment);
+        }
+        Map<Integer, String>[] dictionaries = newDictionaries();
+        int position = HEADER_SIZE;
+        while (position + RECORD_SIZE <= buffer.limit()) {
+            byte type = buffer.get(position);
+            if (type == TYPE_EVENT) {
+                consumer.accept(new ErrorEvent(buffer.getLong(position + 8),
+                        nameOf(dictionaries[KIND_ROUTE], buffer.getInt(position + 4)),
+                        nameOf(dictionaries[KIND_EXCEPTION], buffer.getInt(position + 24)),
+                        nameOf(dictionaries[KIND_CODE], buffer.getInt(position + 28)),
+                        buffer.getShort(position + 2),
+                        buffer.getLong(position + 16)));
+                position += RECORD_SIZE;
+            } else if (type == TYPE_DICTIONARY) {
+                byte kind = buffer.get(position + 1);
+                int length = buffer.getShort(position + 2);
+                int id = buffer.getInt(position + 4);
+                byte[] name = new byte[length];
+                ByteBuffer view = buffer.duplicate();
+                view.position(position + DICTIONARY_HEADER_SIZE);
+                view.get(name);
+                dictionaries[kind].put(id, new String(name, StandardCharsets.UTF_8));
+                position += dictionarySize(length);
+            } else {
+                break;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Integer, String>[] newDictionaries() {
+        Map<Integer, String>[] dictionaries = new Map[4];
+        for (int i = 0; i < dictionaries.length; i++) {
+            dictionaries[i] = new HashMap<>(64);
+        }
+        return dictionaries;
+    }
+
+    private static String nameOf(Map<Integer, String> dictionary, int id) {
+        String name = dictionary.get(id);
+        return name != null ? name : "#" + id;
+    }
+
+    /**
+     * 按 路由+异常类型+状态码+http状态码 汇总
+     *
+     * @param path 目录或文件
+     * @return 按次数从多到少排列
+     */
+    public static List<Summary> summarize(Path path) throws IOException {
+        Map<List<Object>, Summary> summaries = new HashMap<>(64);
+        read(path, event -> summaries.computeIfAbsent(
+                Arrays.asList(event.getRouteId(), event.getException(), event.getCode(), event.getStatus()),
+                key -> new Summary(event.getRouteId(), event.getException(), event.getCode(), event.getStatus())).add(event));
+        List<Summary> result = new ArrayList<>(summaries.values());
+        result.sort(Comparator.comparingLong(Summary::getCount).reversed());
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("用法：ErrorEventReader <事件目录或文件>...");
+            System.exit(1);
+        }
+        PrintStream out = System.out;
+        for (String arg : args) {
+            List<Summary> summaries = summarize(Paths.get(arg));
+            out.println(arg);
+            out.printf("%-10s %-20s %-60s %-8s %-6s %10s %10s%n", "count", "route", "exception", "code", "status", "avg(ms)", "max(ms)");
+            for (Summary summary : summaries) {
+                out.printf("%-10d %-20s %-60s %-8s %-6d %10.3f %10.3f%n", summary.count, summary.routeId, summary.exception,
+                        summary.code, summary.status, summary.averageMillis(), nanosToMillis(summary.maxLatencyNanos));
+            }
+        }
+    }
+
+    private static double nanosToMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * 一组事件的汇总
+     */
+    public static final class Summary {
+
+        private final String routeId;
+
+        private final String exception;
+
+        private final String code;
+
+        private final int status;
+
+        private long count;
+
+        private long totalLatencyNanos;
+
+        private long maxLatencyNanos;
+
+        Summary(String routeId, String exception, String code, int status) {
+            this.routeId = routeId;
+            this.exception = exception;
+            this.code = code;
+            this.status = status;
+        }
+
+        void add(ErrorEvent event) {
+            count++;
+            totalLatencyNanos += event.getLatencyNanos();
+            maxLatencyNanos = Math.max(maxLatencyNanos, event.getLatencyNanos());
+        }
+
+        public String getRouteId() {
+            return routeId;
+        }
+
+        public String getException() {
+            return exception;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMaxLatencyNanos() {
+            return maxLatencyNanos;
+        }
+
+        double averageMillis() {
+            return count == 0 ? 0 : nanosToMillis(totalLatencyNanos / count);
+        }
+    }
+}
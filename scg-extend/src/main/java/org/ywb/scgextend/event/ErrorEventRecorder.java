@@ -0,0 +1,151 @@
+package org.ywb.scgextend.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @version v1.0.0
+ * <p>
+ * 异常事件记录
+ * 日志中只有文本形式的异常信息，不方便事后统计。开启后每个处理的异常都记录为一条32字节的事件：
+ * 时间戳、路由、异常类型、状态码、http状态码、请求耗时。
+ * 请求线程只把事件写入无锁的{@link ErrorEventRingBuffer}，字符串转换为字典id，不创建对象；
+ * 后台线程批量写入内存映射的事件文件，格式见{@link ErrorEventFormat}，
+ * 通过{@link ErrorEventReader}读取和汇总。缓冲区满时丢弃事件并定期输出丢弃数量。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(ErrorEventProperties.class)
+public class ErrorEventRecorder {
+
+    private static final int MAX_BATCH = 4096;
+
+    private static final int MAX_DICTIONARY_SIZE = 1024;
+
+    /**
+     * 每个文件开头要写出用到的字典记录，文件至少能容纳所有字典记录和一条事件，否则写入时越界
+     */
+    static final long MIN_SEGMENT_SIZE = ErrorEventFormat.HEADER_SIZE
+            + 3L * MAX_DICTIONARY_SIZE * ErrorEventFormat.dictionarySize(ErrorEventFormat.MAX_NAME_LENGTH)
+            + ErrorEventFormat.RECORD_SIZE;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long DROPPED_REPORT_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final ErrorEventProperties properties;
+
+    /**
+     * 未开启时为null
+     */
+    private final ErrorEventRingBuffer ringBuffer;
+
+    private final ErrorEventDictionary<String> routes = new ErrorEventDictionary<>(String::valueOf, MAX_DICTIONARY_SIZE);
+
+    private final ErrorEventDictionary<Class<?>> exceptions = new ErrorEventDictionary<>(Class::getName, MAX_DICTIONARY_SIZE);
+
+    private final ErrorEventDictionary<String> codes = new ErrorEventDictionary<>(String::valueOf, MAX_DICTIONARY_SIZE);
+
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile Thread writer;
+
+    public ErrorEventRecorder(ErrorEventProperties properties) {
+        if (properties.isEnabled() && properties.getSegmentSize().toBytes() < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("scg-extend.error-event.segment-size不能小于" + (MIN_SEGMENT_SIZE + 1023) / 1024 + "KB");
+        }
+        this.properties = properties;
+        this.ringBuffer = properties.isEnabled() ? new ErrorEventRingBuffer(properties.getBufferSize()) : null;
+    }
+
+    /**
+     * 记录一次处理的异常，不会阻塞
+     *
+     * @param routeId       路由id，没有匹配到路由时为null
+     * @param exceptionType 异常类型
+     * @param code          返回的状态码，没有时为null
+     * @param status        http状态码
+     * @param latencyNanos  请求耗时，从进入网关到写出异常响应前
+     */
+    public void record(String routeId, Class<?> exceptionType, String code, int status, long latencyNanos) {
+        if (ringBuffer == null) {
+            return;
+        }
+        if (!ringBuffer.publish(System.currentTimeMillis(), routes.idOf(routeId), exceptions.idOf(exceptionType), codes.idOf(code), status, latencyNanos)) {
+            dropped.increment();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (ringBuffer == null) {
+            return;
+        }
+        Thread thread = new Thread(this::drain, "error-event-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    /**
+     * 停止后台线程，写出缓冲区中剩余的事件
+     * 不使用interrupt，中断会导致正在写文件的channel被关闭
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread thread = writer;
+        writer = null;
+        if (Objects.nonNull(thread)) {
+            LockSupport.unpark(thread);
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void drain() {
+        ErrorEventSegmentWriter segmentWriter = new ErrorEventSegmentWriter(Paths.get(properties.getDirectory()),
+                properties.getSegmentSize().toBytes(), properties.getMaxSegments(), routes, exceptions, codes);
+        ErrorEventRingBuffer.EventHandler handler = segmentWriter::write;
+        try {
+            long nextReport = System.nanoTime() + DROPPED_REPORT_NANOS;
+            while (writer == Thread.currentThread()) {
+                if (ringBuffer.drain(handler, MAX_BATCH) == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                if (System.nanoTime() - nextReport >= 0) {
+                    this.reportDropped();
+                    nextReport = System.nanoTime() + DROPPED_REPORT_NANOS;
+                }
+            }
+            while (ringBuffer.drain(handler, MAX_BATCH) > 0) {
+                // 写出停止前剩余的事件
+            }
+            this.reportDropped();
+        } catch (UncheckedIOException e) {
+            log.error("异常事件写入文件失败，停止记录", e.getCause());
+        } catch (RuntimeException e) {
+            log.error("异常事件写入失败，停止记录", e);
+        } finally {
+            segmentWriter.close();
+        }
+    }
+
+    private void reportDropped() {
+        long droppedCount = dropped.sumThenReset();
+        if (droppedCount > 0) {
+            log.warn("异常事件缓冲区已满，丢弃了{}条事件", droppedCount);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.ywb.scgextend.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 多生产者、单消费者的无锁环形缓冲区
+ * <p>
+ * 参考Disruptor：事件的各个字段预先分配在数组中，发布时不创建对象。
+ * 生产者通过CAS领取序号，写入字段后在availability数组中标记该槽位的序号(lazySet)；
+ * 消费者按序号顺序读取，只有槽位标记的序号等于期望的序号时才认为已经发布，
+ * 读完一批后更新消费进度，生产者根据消费进度判断是否已满。
+ * 已满时直接返回false，不等待，请求线程不会因为写出慢而阻塞。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+final class ErrorEventRingBuffer {
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final long[] timestamps;
+
+    private final long[] latencies;
+
+    private final int[] routeIds;
+
+    private final int[] exceptionIds;
+
+    private final int[] codeIds;
+
+    private final int[] statuses;
+
+    /**
+     * 每个槽位最近一次发布的序号，未发布时为-1
+     */
+    private final AtomicLongArray availability;
+
+    /**
+     * 生产者已领取的最大序号
+     */
+    private final AtomicLong claimed = new AtomicLong(-1);
+
+    /**
+     * 消费者已处理的最大序号
+     */
+    private volatile long consumed = -1;
+
+    ErrorEventRingBuffer(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize必须大于0：" + bufferSize);
+        }
+        this.capacity = bufferSize == 1 ? 1 : Integer.highestOneBit(bufferSize - 1) << 1;
+        this.mask = capacity - 1;
+        this.timestamps = new long[capacity];
+        this.latencies = new long[capacity];
+        this.routeIds = new int[capacity];
+        this.exceptionIds = new int[capacity];
+        this.codeIds = new int[capacity];
+        this.statuses = new int[capacity];
+        this.availability = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            availability.lazySet(i, -1);
+        }
+    }
+
+    /**
+     * 发布一个事件，可以被多个线程同时调用
+     *
+     * @return 缓冲区已满时返回false，事件被丢弃
+     */
+    boolean publish(long timestamp, int routeId, int exceptionId, int codeId, int status, long latency) {
+        long sequence;
+        long current;
+        do {
+            current = claimed.get();
+            sequence = current + 1;
+            if (sequence - consumed > capacity) {
+                return false;
+            }
+        } while (!claimed.compareAndSet(current, sequence));
+        int index = (int) sequence & mask;
+        timestamps[index] = timestamp;
+        latencies[index] = latency;
+        routeIds[index] = routeId;
+        exceptionIds[index] = exceptionId;
+        codeIds[index] = codeId;
+        statuses[index] = status;
+        availability.lazySet(index, sequence);
+        return true;
+    }
+
+    /**
+     * 按发布顺序读取事件，只能由一个线程调用
+     *
+     * @param handler  事件处理
+     * @param maxBatch 最多读取多少个
+     * @return 读取的事件数
+     */
+    int drain(EventHandler handler, int maxBatch) {
+        long next = consumed + 1;
+        int count = 0;
+        while (count < maxBatch) {
+            int index = (int) next & mask;
+            if (availability.get(index) != next) {
+                break;
+            }
+            handler.onEvent(timestamps[index], routeIds[index], exceptionIds[index], codeIds[index], statuses[index], latencies[index]);
+            next++;
+            count++;
+        }
+        if (count > 0) {
+            consumed = next - 1;
+        }
+        return count;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    @FunctionalInterface
+    interface EventHandler {
+
+        void onEvent(long timestamp, int routeId, int exceptionId, int codeId, int status, long latency);
+    }
+}
@@ -0,0 +1,162 @@
+package org.ywb.scgextend.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.ywb.scgextend.event.ErrorEventFormat.*;
+
+/**
+ * 把事件写入内存映射的事件文件，只由后台线程使用
+ * 文件写满后切换到新文件，并删除超过数量上限的旧文件
+ *
+ * @author yuwenbo
+ */
+@Slf4j
+final class ErrorEventSegmentWriter implements Closeable {
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final int maxSegments;
+
+    /**
+     * 按字典种类排列的字典
+     */
+    private final ErrorEventDictionary<?>[] dictionaries = new ErrorEventDictionary<?>[4];
+
+    /**
+     * 当前文件中每种字典已经写出的id上限(不含)
+     */
+    private final int[] defined = new int[4];
+
+    private MappedByteBuffer buffer;
+
+    private long sequence;
+
+    ErrorEventSegmentWriter(Path directory, long segmentSize, int maxSegments, ErrorEventDictionary<?> routes,
+                            ErrorEventDictionary<?> exceptions, ErrorEventDictionary<?> codes) {
+        this.directory = directory;
+        // 单个映射最大为2G
+        this.segmentSize = (int) Math.min(segmentSize, Integer.MAX_VALUE);
+        this.maxSegments = maxSegments;
+        dictionaries[KIND_ROUTE] = routes;
+        dictionaries[KIND_EXCEPTION] = exceptions;
+        dictionaries[KIND_CODE] = codes;
+    }
+
+    void write(long timestamp, int routeId, int exceptionId, int codeId, int status, long latency) {
+        try {
+            if (buffer == null || buffer.remaining() < this.requiredSize(routeId, exceptionId, codeId)) {
+                this.rotate();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.define(KIND_ROUTE, routeId);
+        this.define(KIND_EXCEPTION, exceptionId);
+        this.define(KIND_CODE, codeId);
+        int position = buffer.position();
+        buffer.put(position + 1, (byte) 0)
+                .putShort(position + 2, (short) status)
+                .putInt(position + 4, routeId)
+                .putLong(position + 8, timestamp)
+                .putLong(position + 16, latency)
+                .putInt(position + 24, exceptionId)
+                .putInt(position + 28, codeId)
+                // 最后写入类型，同时读取文件的进程不会读到写了一半的记录
+                .put(position, TYPE_EVENT);
+        buffer.position(position + RECORD_SIZE);
+    }
+
+    private int requiredSize(int routeId, int exceptionId, int codeId) {
+        return RECORD_SIZE + this.pendingSize(KIND_ROUTE, routeId) + this.pendingSize(KIND_EXCEPTION, exceptionId) + this.pendingSize(KIND_CODE, codeId);
+    }
+
+    private int pendingSize(byte kind, int id) {
+        int size = 0;
+        for (int i = defined[kind]; i <= id; i++) {
+            size += dictionarySize(this.nameBytes(kind, i).length);
+        }
+        return size;
+    }
+
+    private void define(byte kind, int id) {
+        for (int i = defined[kind]; i <= id; i++) {
+            byte[] name = this.nameBytes(kind, i);
+            int position = buffer.position();
+            buffer.position(position + DICTIONARY_HEADER_SIZE);
+            buffer.put(name);
+            buffer.put(position + 1, kind)
+                    .putShort(position + 2, (short) name.length)
+                    .putInt(position + 4, i)
+                    .put(position, TYPE_DICTIONARY);
+            buffer.position(position + dictionarySize(name.length));
+        }
+        defined[kind] = Math.max(defined[kind], id + 1);
+    }
+
+    private byte[] nameBytes(byte kind, int id) {
+        byte[] name = dictionaries[kind].nameOf(id).getBytes(StandardCharsets.UTF_8);
+        return name.length > MAX_NAME_LENGTH ? Arrays.copyOf(name, MAX_NAME_LENGTH) : name;
+    }
+
+    private void rotate() throws IOException {
+        this.finish();
+        Files.createDirectories(directory);
+        long now = System.currentTimeMillis();
+        Path file = directory.resolve(String.format("%s%013d-%06d%s", FILE_PREFIX, now, sequence++, FILE_SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 关闭channel后映射仍然有效，java8没有主动解除映射的方法，由GC回收
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE).putLong(now);
+        buffer.position(HEADER_SIZE);
+        Arrays.fill(defined, 0);
+        this.deleteOldSegments();
+    }
+
+    private void deleteOldSegments() throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    /**
+     * 目录中的事件文件，按创建时间从早到晚排列
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private void finish() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        this.finish();
+    }
+}
@@ -0,0 +1,28 @@
+package org.ywb.scgextend.exceptions;
+
+import lombok.Getter;
+
+import java.net.ConnectException;
+
+/**
+ * 路由熔断期间直接失败时抛出，不会真正发起连接
+ * 继承{@link ConnectException}，未单独处理时按连接失败处理
+ * 每个请求都会抛出，所以不收集异常栈
+ *
+ * @author yuwenbo
+ */
+@Getter
+public class CircuitBreakerOpenException extends ConnectException {
+
+    private final String routeId;
+
+    public CircuitBreakerOpenException(String routeId) {
+        super("路由[" + routeId + "]已熔断");
+        this.routeId = routeId;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,20 @@
+package org.ywb.scgextend.exceptions;
+
+import lombok.Getter;
+
+/**
+ * 路由的并发请求数超过自适应上限时抛出，请求不会转发到上游
+ * 过载时每个被拒绝的请求都会抛出，所以不收集异常栈
+ *
+ * @author yuwenbo
+ */
+@Getter
+public class ConcurrencyLimitException extends RuntimeException {
+
+    private final String routeId;
+
+    public ConcurrencyLimitException(String routeId) {
+        super("路由[" + routeId + "]并发请求数超过上限", null, false, false);
+        this.routeId = routeId;
+    }
+}
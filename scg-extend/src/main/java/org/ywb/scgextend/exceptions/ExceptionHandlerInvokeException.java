@@ -0,0 +1,31 @@
+package org.ywb.scgextend.exceptions;
+
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+
+/**
+ * 异常处理方法自身执行失败时抛出
+ * 携带失败的处理方法以及原本要处理的异常，便于排查
+ *
+ * @author yuwenbo
+ */
+@Getter
+public class ExceptionHandlerInvokeException extends RuntimeException {
+
+    /**
+     * 执行失败的处理方法
+     */
+    private final Method handlerMethod;
+
+    /**
+     * 原本要处理的异常
+     */
+    private final Throwable handledException;
+
+    public ExceptionHandlerInvokeException(Method handlerMethod, Throwable handledException, Throwable cause) {
+        super("异常处理方法执行失败：" + handlerMethod, cause);
+        this.handlerMethod = handlerMethod;
+        this.handledException = handledException;
+    }
+}
@@ -0,0 +1,136 @@
+package org.ywb.scgextend.exceptions;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.ywb.scgextend.common.IResultCode;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.common.ResultVO;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 网关业务异常
+ * <p>
+ * 未登录、token过期等业务拒绝在过滤器中大量抛出，异常栈对排查没有帮助，
+ * 收集异常栈(fillInStackTrace)却是抛出异常的主要开销。
+ * 1.{@link #of(IResultCode)}返回每个状态码预先创建好的共享实例，不收集异常栈，抛出时没有任何分配；
+ * 2.{@link #setStackTraceEnabled(boolean)}关闭后，通过构造方法创建的实例也不再收集异常栈，
+ * 由scg-extend.exception-handler.gateway-exception-stack-trace配置，默认开启。
+ * 共享实例没有cause、不能添加suppressed异常，处理方法应该只使用它的code和message，
+ * 返回{@link #toResult()}时异常处理直接复用缓存的处理结果。
+ * 注意：复用结果后不再调用处理方法，处理方法中的日志、审计、计数等副作用只会在第一次发生；
+ * 需要每次都执行副作用的处理方法不要返回{@link #toResult()}，或者抛出通过构造方法创建的实例。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Getter
+public class GatewayException extends RuntimeException {
+
+    private static volatile boolean stackTraceEnabled = true;
+
+    /**
+     * 内置状态码的共享实例，类初始化时创建
+     */
+    private static final Map<ResultCode, GatewayException> SHARED;
+
+    /**
+     * 其他模块通过{@link ResultCode#register}注册的状态码的共享实例，第一次使用时创建
+     * 只缓存已注册的状态码，数量不超过注册的状态码数量
+     */
+    private static final Map<IResultCode, GatewayException> EXT_SHARED = new ConcurrentHashMap<>(16);
+
+    static {
+        Map<ResultCode, GatewayException> shared = new EnumMap<>(ResultCode.class);
+        for (ResultCode resultCode : ResultCode.values()) {
+            shared.put(resultCode, new GatewayException(resultCode, ResultVO.constant(resultCode)));
+        }
+        SHARED = Collections.unmodifiableMap(shared);
+    }
+
+    private String code;
+    private String message;
+
+    /**
+     * 共享实例的常量返回值，其他实例为null
+     */
+    @Getter(AccessLevel.NONE)
+    private final transient ResultVO<Void> sharedResult;
+
+    public GatewayException(IResultCode resultCode) {
+        this(resultCode.getCode(), resultCode.getMessage(), stackTraceEnabled);
+    }
+
+    public GatewayException(String code, String msg) {
+        this(code, msg, stackTraceEnabled);
+    }
+
+    /**
+     * @param writableStackTrace 是否收集异常栈，不受全局配置影响
+     */
+    public GatewayException(String code, String msg, boolean writableStackTrace) {
+        super(msg, null, true, writableStackTrace);
+        this.code = code;
+        this.message = msg;
+        this.sharedResult = null;
+    }
+
+    private GatewayException(IResultCode resultCode, ResultVO<Void> sharedResult) {
+        super(resultCode.getMessage(), null, false, false);
+        this.code = resultCode.getCode();
+        this.message = resultCode.getMessage();
+        this.sharedResult = sharedResult;
+    }
+
+    /**
+     * 获取状态码对应的共享实例
+     * 没有注册的{@link IResultCode}不缓存，每次返回新的不收集异常栈的实例。
+     * 处理方法对共享实例返回{@link #toResult()}后，同一个处理方法不会再被调用，见类注释
+     *
+     * @param resultCode {@link ResultCode}或其他模块注册的{@link IResultCode}
+     * @return 不收集异常栈的共享实例
+     */
+    public static GatewayException of(IResultCode resultCode) {
+        if (resultCode instanceof ResultCode) {
+            return SHARED.get(resultCode);
+        }
+        GatewayException shared = EXT_SHARED.get(resultCode);
+        if (shared != null) {
+            return shared;
+        }
+        if (ResultCode.lookup(resultCode.getCode()) != resultCode) {
+            return new GatewayException(resultCode.getCode(), resultCode.getMessage(), false);
+        }
+        return EXT_SHARED.computeIfAbsent(resultCode, key -> new GatewayException(key, ResultVO.constant(key)));
+    }
+
+    /**
+     * 设置通过构造方法创建的实例是否收集异常栈
+     */
+    public static void setStackTraceEnabled(boolean enabled) {
+        stackTraceEnabled = enabled;
+    }
+
+    public static boolean isStackTraceEnabled() {
+        return stackTraceEnabled;
+    }
+
+    /**
+     * 是否为{@link #of(IResultCode)}返回的共享实例
+     */
+    public boolean isShared() {
+        return sharedResult != null;
+    }
+
+    /**
+     * 转换成响应，共享实例返回常量VO，响应体只序列化一次
+     *
+     * @return resultVO
+     */
+    public ResultVO<Void> toResult() {
+        return sharedResult != null ? sharedResult : ResultVO.buildFailure(code, message);
+    }
+}
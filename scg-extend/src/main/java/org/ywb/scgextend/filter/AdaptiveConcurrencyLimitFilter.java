@@ -0,0 +1,71 @@
+package org.ywb.scgextend.filter;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.ywb.scgextend.exceptions.ConcurrencyLimitException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Objects;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * @version v1.0.0
+ * <p>
+ * 按路由限制转发到上游的并发请求数
+ * 并发上限由{@link AdaptiveConcurrencyLimiter}根据错误率和耗时自动调整，
+ * 超过上限的请求以{@link ConcurrencyLimitException}失败，由异常处理返回缓存的响应体。
+ * 上游直接返回5xx时不会抛出异常，请求结束时按响应状态码计入错误。
+ * 在熔断过滤器之后执行，熔断期间直接失败的请求不占用名额。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Component
+@ConditionalOnProperty(prefix = "scg-extend.concurrency-limit", name = "enabled", havingValue = "true")
+public class AdaptiveConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    public static final int CONCURRENCY_LIMIT_FILTER_ORDER = ConnectCircuitBreakerFilter.CIRCUIT_BREAKER_FILTER_ORDER + 1;
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    public AdaptiveConcurrencyLimitFilter(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (Objects.isNull(route)) {
+            return chain.filter(exchange);
+        }
+        RouteLimiter limiter = concurrencyLimiter.limiterOf(route.getId());
+        if (!limiter.tryAcquire()) {
+            return Mono.error(new ConcurrencyLimitException(route.getId()));
+        }
+        exchange.getAttributes().put(AdaptiveConcurrencyLimiter.PERMIT_ATTR, limiter);
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    // 上游返回的5xx原样转发，不会经过异常处理，在这里反馈给限制器
+                    Integer status = exchange.getResponse().getRawStatusCode();
+                    if (signal == SignalType.ON_COMPLETE && Objects.nonNull(status) && status >= 500) {
+                        concurrencyLimiter.onError(exchange, null, status);
+                    }
+                    long now = System.nanoTime();
+                    limiter.release(now - start);
+                    limiter.maybeAdjust(now, concurrencyLimiter.properties());
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        return CONCURRENCY_LIMIT_FILTER_ORDER;
+    }
+}
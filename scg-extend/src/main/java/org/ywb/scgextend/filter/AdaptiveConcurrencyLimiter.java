@@ -0,0 +1,90 @@
+package org.ywb.scgextend.filter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按路由的自适应并发限制
+ * <p>
+ * {@link AdaptiveConcurrencyLimitFilter}在转发前获取名额，请求结束时归还并记录耗时；
+ * 异常处理({@link org.ywb.scgextend.handler.GlobalExceptionHandler})把上游失败反馈给这里，
+ * 上游直接返回的5xx响应由{@link AdaptiveConcurrencyLimitFilter}在请求结束时反馈，
+ * 错误率、耗时超过阈值时收缩并发上限，超出上限的请求直接返回缓存的响应体。
+ * 只有获取过名额的请求的错误会被统计，被熔断、限流拒绝的请求不影响上限。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Component
+@EnableConfigurationProperties(AdaptiveConcurrencyProperties.class)
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * 获取到名额的请求，保存对应的{@link RouteLimiter}
+     */
+    static final String PERMIT_ATTR = AdaptiveConcurrencyLimiter.class.getName() + ".permit";
+
+    private final AdaptiveConcurrencyProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, RouteLimiter> limiters = new ConcurrentHashMap<>(16);
+
+    public AdaptiveConcurrencyLimiter(AdaptiveConcurrencyProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    AdaptiveConcurrencyProperties properties() {
+        return properties;
+    }
+
+    RouteLimiter limiterOf(String routeId) {
+        RouteLimiter limiter = limiters.get(routeId);
+        if (limiter == null) {
+            limiter = limiters.computeIfAbsent(routeId, this::createLimiter);
+        }
+        return limiter;
+    }
+
+    private RouteLimiter createLimiter(String routeId) {
+        RouteLimiter limiter = new RouteLimiter(properties.getInitialLimit(), System.nanoTime());
+        Gauge.builder("scg.gateway.concurrency.limit", limiter, RouteLimiter::limit)
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("scg.gateway.concurrency.in.flight", limiter, RouteLimiter::inFlight)
+                .tag("route", routeId)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    /**
+     * 异常处理完成后、或者上游返回5xx时反馈上游失败
+     *
+     * @param exchange 当前请求
+     * @param error    处理的异常，上游返回5xx时为null
+     * @param status   响应的http状态码
+     */
+    public void onError(ServerWebExchange exchange, Throwable error, int status) {
+        RouteLimiter limiter = exchange.getAttribute(PERMIT_ATTR);
+        if (limiter != null && (status >= 500 || StaleResponseCache.isUpstreamUnavailable(error))) {
+            limiter.onError();
+        }
+    }
+
+    /**
+     * 路由当前的并发上限
+     *
+     * @param routeId 路由id
+     * @return 路由还没有请求时返回初始值
+     */
+    public int limit(String routeId) {
+        RouteLimiter limiter = limiters.get(routeId);
+        return limiter != null ? limiter.limit() : properties.getInitialLimit();
+    }
+}
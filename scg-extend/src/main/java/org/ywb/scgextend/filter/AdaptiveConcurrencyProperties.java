@@ -0,0 +1,61 @@
+package org.ywb.scgextend.filter;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 按路由自适应并发限制配置
+ *
+ * @author yuwenbo
+ */
+@Data
+@ConfigurationProperties(prefix = "scg-extend.concurrency-limit")
+public class AdaptiveConcurrencyProperties {
+
+    /**
+     * 是否开启，默认关闭
+     */
+    private boolean enabled = false;
+
+    /**
+     * 初始的并发上限
+     */
+    private int initialLimit = 100;
+
+    /**
+     * 并发上限的最小值
+     */
+    private int minLimit = 10;
+
+    /**
+     * 并发上限的最大值
+     */
+    private int maxLimit = 1000;
+
+    /**
+     * 调整并发上限的统计窗口
+     */
+    private Duration window = Duration.ofSeconds(1);
+
+    /**
+     * 没有过载时每个窗口增加的并发数
+     */
+    private int additiveIncrease = 5;
+
+    /**
+     * 过载时并发上限乘以该系数
+     */
+    private double backoffRatio = 0.75;
+
+    /**
+     * 窗口内错误率超过该值视为过载
+     */
+    private double errorRateThreshold = 0.2;
+
+    /**
+     * 窗口内平均耗时超过该值视为过载
+     */
+    private Duration latencyThreshold = Duration.ofSeconds(1);
+}
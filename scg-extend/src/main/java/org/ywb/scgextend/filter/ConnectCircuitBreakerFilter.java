@@ -0,0 +1,196 @@
+package org.ywb.scgextend.filter;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.ywb.scgextend.exceptions.CircuitBreakerOpenException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.netty.tcp.TcpClient;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * @version v1.0.0
+ * <p>
+ * 按路由统计上游连接失败的熔断过滤器
+ * 连接失败包括拒绝连接、连接超时(netty的ConnectTimeoutException，上游主机不可达时最常见)和没有到主机的路由，
+ * 异常被包装时按cause链判断。
+ * 统计窗口内连接失败达到阈值后，该路由的请求不再发起连接，
+ * 直接以{@link CircuitBreakerOpenException}失败，由异常处理返回缓存的响应体。
+ * 熔断到期后在后台对上游发起一次TCP探测，探测成功才恢复转发；
+ * 无法直接探测的路由(如lb://)放行一个请求作为探测。
+ * 路由刷新后删除已经不存在的路由的熔断状态。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(ConnectCircuitBreakerProperties.class)
+@ConditionalOnProperty(prefix = "scg-extend.circuit-breaker", name = "enabled", matchIfMissing = true)
+public class ConnectCircuitBreakerFilter implements GlobalFilter, Ordered, ApplicationListener<RefreshRoutesResultEvent> {
+
+    /**
+     * 在请求地址确定之后，真正发起请求之前执行
+     */
+    public static final int CIRCUIT_BREAKER_FILTER_ORDER = RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1;
+
+    private static final int MAX_CAUSE_DEPTH = 8;
+
+    private final ConnectCircuitBreakerProperties properties;
+
+    private final ConcurrentHashMap<String, RouteCircuit> circuits = new ConcurrentHashMap<>(16);
+
+    public ConnectCircuitBreakerFilter(ConnectCircuitBreakerProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (Objects.isNull(route)) {
+            return chain.filter(exchange);
+        }
+        RouteCircuit circuit = this.circuitOf(route.getId());
+        if (!circuit.isClosed()) {
+            if (!circuit.tryHalfOpen(System.nanoTime(), properties.getOpenDuration().toNanos()) || this.probe(route, circuit)) {
+                return Mono.error(new CircuitBreakerOpenException(route.getId()));
+            }
+            // 无法后台探测，本次请求作为探测请求放行
+            return this.trial(exchange, chain, route, circuit);
+        }
+        return chain.filter(exchange)
+                .doOnSuccess(v -> circuit.onSuccess(System.nanoTime()))
+                .doOnError(ConnectCircuitBreakerFilter::isConnectFailure, e -> this.onConnectFailure(route, circuit));
+    }
+
+    @Override
+    public int getOrder() {
+        return CIRCUIT_BREAKER_FILTER_ORDER;
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (!event.isSuccess() || !(event.getSource() instanceof RouteLocator)) {
+            return;
+        }
+        ((RouteLocator) event.getSource()).getRoutes()
+                .map(Route::getId)
+                .collect(Collectors.toSet())
+                .subscribe(routeIds -> circuits.keySet().retainAll(routeIds),
+                        e -> log.error("路由刷新后清理熔断状态失败", e));
+    }
+
+    /**
+     * 异常或者它的原因是否是连接失败
+     * netty的ConnectTimeoutException、AnnotatedConnectException都是{@link ConnectException}的子类
+     */
+    static boolean isConnectFailure(Throwable error) {
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (current instanceof ConnectException || current instanceof NoRouteToHostException) {
+                return true;
+            }
+            current = current.getCause() == current ? null : current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * 路由当前的熔断状态
+     *
+     * @param routeId 路由id
+     * @return 是否处于熔断中，从未请求过的路由返回false
+     */
+    public boolean isOpen(String routeId) {
+        RouteCircuit circuit = circuits.get(routeId);
+        return Objects.nonNull(circuit) && !circuit.isClosed();
+    }
+
+    private RouteCircuit circuitOf(String routeId) {
+        RouteCircuit circuit = circuits.get(routeId);
+        if (circuit == null) {
+            circuit = circuits.computeIfAbsent(routeId, id -> new RouteCircuit(System.nanoTime()));
+        }
+        return circuit;
+    }
+
+    /**
+     * 探测请求无论以何种方式结束都要离开HALF_OPEN：正常完成恢复转发，
+     * 出现任何异常(包括超时)或被取消(如重试的单次超时)重新熔断，否则路由会一直停留在HALF_OPEN
+     */
+    private Mono<Void> trial(ServerWebExchange exchange, GatewayFilterChain chain, Route route, RouteCircuit circuit) {
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (signal == SignalType.ON_COMPLETE) {
+                        circuit.onSuccess(System.nanoTime());
+                        log.info("路由[{}]探测请求成功，恢复转发", route.getId());
+                    } else {
+                        circuit.onProbeFailure(System.nanoTime());
+                    }
+                });
+    }
+
+    private void onConnectFailure(Route route, RouteCircuit circuit) {
+        if (circuit.onFailure(System.nanoTime(), properties.getWindow().toNanos(), properties.getFailureThreshold())) {
+            log.warn("路由[{}]连接失败次数过多，熔断{}ms，上游：{}", route.getId(), properties.getOpenDuration().toMillis(), route.getUri());
+        }
+    }
+
+    /**
+     * 在后台对上游发起TCP连接探测
+     *
+     * @return 是否发起了探测，无法确定上游地址时返回false
+     */
+    private boolean probe(Route route, RouteCircuit circuit) {
+        URI uri = route.getUri();
+        int port = probePort(uri);
+        if (Objects.isNull(uri.getHost()) || port < 0) {
+            return false;
+        }
+        TcpClient.create()
+                .host(uri.getHost())
+                .port(port)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getProbeTimeout().toMillis())
+                .connect()
+                .subscribe(connection -> {
+                    connection.dispose();
+                    circuit.onSuccess(System.nanoTime());
+                    log.info("路由[{}]探测成功，恢复转发", route.getId());
+                }, e -> circuit.onProbeFailure(System.nanoTime()));
+        return true;
+    }
+
+    private static int probePort(URI uri) {
+        if (uri.getPort() > 0) {
+            return uri.getPort();
+        }
+        String scheme = uri.getScheme();
+        if ("http".equalsIgnoreCase(scheme) || "ws".equalsIgnoreCase(scheme)) {
+            return 80;
+        }
+        if ("https".equalsIgnoreCase(scheme) || "wss".equalsIgnoreCase(scheme)) {
+            return 443;
+        }
+        return -1;
+    }
+}
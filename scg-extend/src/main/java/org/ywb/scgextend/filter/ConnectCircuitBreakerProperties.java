@@ -0,0 +1,41 @@
+package org.ywb.scgextend.filter;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 上游连接失败熔断配置
+ *
+ * @author yuwenbo
+ */
+@Data
+@ConfigurationProperties(prefix = "scg-extend.circuit-breaker")
+public class ConnectCircuitBreakerProperties {
+
+    /**
+     * 是否开启熔断
+     */
+    private boolean enabled = true;
+
+    /**
+     * 统计窗口内连接失败达到该次数后熔断
+     */
+    private int failureThreshold = 20;
+
+    /**
+     * 连接失败的统计窗口
+     */
+    private Duration window = Duration.ofSeconds(10);
+
+    /**
+     * 熔断后多久开始探测上游是否恢复
+     */
+    private Duration openDuration = Duration.ofSeconds(5);
+
+    /**
+     * 后台探测的连接超时时间
+     */
+    private Duration probeTimeout = Duration.ofSeconds(1);
+}
@@ -0,0 +1,150 @@
+package org.ywb.scgextend.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.ywb.scgextend.annotation.RetryableError;
+import org.ywb.scgextend.handler.ExceptionHandlerCore;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * @version v1.0.0
+ * <p>
+ * 转发失败时的重试
+ * 是否重试由异常处理的分类决定：异常对应的处理方法标注了{@link RetryableError}时才重试，
+ * 与{@link org.ywb.scgextend.advice.GlobalExceptionHandlerAdvice}对异常的分类保持一致，不再单独配置异常类型。
+ * 1.只重试配置的幂等请求方法，已经开始写出响应后不再重试；
+ * 2.配置了attemptTimeout时，单次转发超时没有收到响应就放弃这次转发立即重试，削减长尾耗时；
+ * 3.所有重试受{@link RetryBudget}限制，上游整体故障时不会因为重试放大流量。
+ * 在熔断、并发限制之前执行，每次转发都会经过熔断和并发限制；
+ * 重试仍然失败或者没有预算时，异常照常交给{@link org.ywb.scgextend.handler.GlobalExceptionHandler}。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "scg-extend.retry", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RetryProperties.class)
+public class ErrorRetryFilter implements GlobalFilter, Ordered {
+
+    /**
+     * 在{@link RouteToRequestUrlFilter}之前执行，重试时重新走一遍之后的过滤器
+     */
+    public static final int RETRY_FILTER_ORDER = RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER - 1;
+
+    /**
+     * 单次转发超时，只用于区分重试原因，不收集异常栈
+     */
+    private static final AttemptTimeoutException ATTEMPT_TIMEOUT = new AttemptTimeoutException();
+
+    private final RetryProperties properties;
+
+    private final ExceptionHandlerCore handlerCore;
+
+    private final RetryBudget retryBudget;
+
+    private final Counter errorRetries;
+
+    private final Counter timeoutRetries;
+
+    private final Counter budgetExhausted;
+
+    public ErrorRetryFilter(RetryProperties properties, ExceptionHandlerCore handlerCore, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.handlerCore = handlerCore;
+        this.retryBudget = new RetryBudget(properties.getBudgetRatio(), properties.getMinRetriesPerSecond(), System.nanoTime());
+        this.errorRetries = retryCounter(meterRegistry, "error");
+        this.timeoutRetries = retryCounter(meterRegistry, "timeout");
+        this.budgetExhausted = Counter.builder("scg.gateway.retry.budget.exhausted")
+                .description("没有重试预算而放弃重试的次数")
+                .register(meterRegistry);
+    }
+
+    private static Counter retryCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("scg.gateway.retries")
+                .description("转发失败后的重试次数")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!this.isRetryable(exchange)) {
+            return chain.filter(exchange);
+        }
+        retryBudget.deposit();
+        return this.attempt(exchange, chain, 1);
+    }
+
+    private boolean isRetryable(ServerWebExchange exchange) {
+        if (properties.getMaxAttempts() <= 1 || !properties.getMethods().contains(exchange.getRequest().getMethod())) {
+            return false;
+        }
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        return Objects.nonNull(route) && (properties.getRoutes().isEmpty() || properties.getRoutes().contains(route.getId()));
+    }
+
+    private Mono<Void> attempt(ServerWebExchange exchange, GatewayFilterChain chain, int attempt) {
+        if (attempt >= properties.getMaxAttempts()) {
+            return chain.filter(exchange);
+        }
+        Mono<Void> result = chain.filter(exchange);
+        Duration attemptTimeout = properties.getAttemptTimeout();
+        if (Objects.nonNull(attemptTimeout)) {
+            // 超时时还没有开始写出响应，并且拿到了预算，才放弃这次转发；否则继续等待
+            Mono<Void> timeout = Mono.delay(attemptTimeout)
+                    .filter(tick -> !exchange.getResponse().isCommitted() && this.tryAcquireBudget())
+                    .flatMap(tick -> Mono.<Void>error(ATTEMPT_TIMEOUT))
+                    .switchIfEmpty(Mono.never());
+            result = Mono.first(result, timeout);
+        }
+        return result.onErrorResume(error -> {
+            if (error == ATTEMPT_TIMEOUT) {
+                timeoutRetries.increment();
+            } else if (exchange.getResponse().isCommitted() || !handlerCore.isRetryable(error) || !this.tryAcquireBudget()) {
+                return Mono.error(error);
+            } else {
+                errorRetries.increment();
+            }
+            log.debug("第{}次转发失败，重试：{}", attempt, error.toString());
+            ServerWebExchangeUtils.reset(exchange);
+            return this.attempt(exchange, chain, attempt + 1);
+        });
+    }
+
+    private boolean tryAcquireBudget() {
+        if (retryBudget.tryAcquire(System.nanoTime())) {
+            return true;
+        }
+        budgetExhausted.increment();
+        return false;
+    }
+
+    @Override
+    public int getOrder() {
+        return RETRY_FILTER_ORDER;
+    }
+
+    private static final class AttemptTimeoutException extends RuntimeException {
+
+        AttemptTimeoutException() {
+            super("单次转发超时", null, false, false);
+        }
+    }
+}
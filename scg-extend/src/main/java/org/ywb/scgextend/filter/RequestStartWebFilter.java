@@ -0,0 +1,47 @@
+package org.ywb.scgextend.filter;
+
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * @version v1.0.0
+ * <p>
+ * 记录请求进入网关的时间
+ * 异常处理据此计算请求从进入网关到返回异常响应的耗时(包括等待上游、重试的时间)，
+ * 而不只是异常处理本身的耗时。
+ * 使用最先执行的WebFilter而不是GlobalFilter，没有匹配到路由的请求也有开始时间。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Component
+public class RequestStartWebFilter implements WebFilter, Ordered {
+
+    public static final String REQUEST_START_ATTR = RequestStartWebFilter.class.getName() + ".start";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        exchange.getAttributes().put(REQUEST_START_ATTR, System.nanoTime());
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    /**
+     * 请求进入网关的时间
+     *
+     * @param exchange 当前请求
+     * @return {@link System#nanoTime()}，没有经过该过滤器时返回当前时间
+     */
+    public static long startOf(ServerWebExchange exchange) {
+        Long start = exchange.getAttribute(REQUEST_START_ATTR);
+        return start != null ? start : System.nanoTime();
+    }
+}
@@ -0,0 +1,98 @@
+package org.ywb.scgextend.filter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全局的重试预算，保证上游故障时重试不会把流量放大
+ * <p>
+ * 由两个无锁的令牌桶组成，每次重试消耗一个令牌：
+ * 1.每个请求存入budgetRatio个令牌(以千分之一为单位)，最多积累{@link #MAX_TOKENS}个，重试次数与请求数成比例；
+ * 2.请求很少时，按GCRA(只记录下一个令牌的理论到达时间)每秒补充minRetriesPerSecond个令牌。
+ * 都只用一个AtomicLong做CAS，不加锁。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+final class RetryBudget {
+
+    private static final long TOKEN = 1000;
+
+    private static final long MAX_TOKENS = 100;
+
+    private final long deposit;
+
+    private final AtomicLong balance = new AtomicLong();
+
+    /**
+     * 两次补充令牌的间隔，为0时不补充
+     */
+    private final long reserveInterval;
+
+    /**
+     * 最多提前消费多久的补充令牌，即允许的突发量
+     */
+    private final long reserveTolerance;
+
+    /**
+     * 下一个补充令牌的理论到达时间
+     */
+    private final AtomicLong reserveArrival;
+
+    RetryBudget(double budgetRatio, int minRetriesPerSecond, long now) {
+        this.deposit = Math.round(budgetRatio * TOKEN);
+        this.reserveInterval = minRetriesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / minRetriesPerSecond : 0;
+        this.reserveTolerance = TimeUnit.SECONDS.toNanos(1) - reserveInterval;
+        this.reserveArrival = new AtomicLong(now);
+    }
+
+    /**
+     * 每个请求调用一次
+     */
+    void deposit() {
+        if (deposit <= 0) {
+            return;
+        }
+        long current;
+        long next;
+        do {
+            current = balance.get();
+            if (current >= MAX_TOKENS * TOKEN) {
+                return;
+            }
+            next = Math.min(current + deposit, MAX_TOKENS * TOKEN);
+        } while (!balance.compareAndSet(current, next));
+    }
+
+    /**
+     * 获取一次重试的令牌
+     *
+     * @return 没有令牌时返回false，不应该重试
+     */
+    boolean tryAcquire(long now) {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return this.tryAcquireReserve(now);
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    private boolean tryAcquireReserve(long now) {
+        if (reserveInterval <= 0) {
+            return false;
+        }
+        long arrival;
+        long next;
+        do {
+            arrival = reserveArrival.get();
+            if (arrival - now > reserveTolerance) {
+                return false;
+            }
+            next = (arrival - now > 0 ? arrival : now) + reserveInterval;
+        } while (!reserveArrival.compareAndSet(arrival, next));
+        return true;
+    }
+}
@@ -0,0 +1,56 @@
+package org.ywb.scgextend.filter;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 转发失败时的重试配置
+ *
+ * @author yuwenbo
+ */
+@Data
+@ConfigurationProperties(prefix = "scg-extend.retry")
+public class RetryProperties {
+
+    /**
+     * 是否开启，默认关闭
+     */
+    private boolean enabled = false;
+
+    /**
+     * 开启重试的路由id，为空时所有路由都开启
+     */
+    private Set<String> routes = new HashSet<>();
+
+    /**
+     * 幂等、可以重试的请求方法
+     */
+    private Set<HttpMethod> methods = EnumSet.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+    /**
+     * 最多转发几次(包括第一次)
+     */
+    private int maxAttempts = 2;
+
+    /**
+     * 单次转发超过该时间还没有收到响应时，放弃这次转发并立即重试，用于削减长尾耗时
+     * 最后一次转发不受限制；为null时不开启
+     */
+    private Duration attemptTimeout;
+
+    /**
+     * 每个请求为重试预算存入的次数，0.1表示重试次数最多为请求数的10%
+     */
+    private double budgetRatio = 0.1;
+
+    /**
+     * 请求很少时，每秒至少允许的重试次数
+     */
+    private int minRetriesPerSecond = 10;
+}
@@ -0,0 +1,90 @@
+package org.ywb.scgextend.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个路由的熔断状态，所有状态变化都通过CAS完成，不加锁
+ * <p>
+ * CLOSED：正常转发，统计窗口内连接失败达到阈值后转为OPEN
+ * OPEN：直接失败，经过openDuration后转为HALF_OPEN并发起一次探测
+ * HALF_OPEN：探测进行中，仍然直接失败；探测成功转为CLOSED，失败、超时或被取消都重新转为OPEN
+ * </p>
+ *
+ * @author yuwenbo
+ */
+class RouteCircuit {
+
+    static final int CLOSED = 0;
+
+    static final int OPEN = 1;
+
+    static final int HALF_OPEN = 2;
+
+    private final AtomicInteger state = new AtomicInteger(CLOSED);
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final AtomicLong windowStart;
+
+    private volatile long openedAt;
+
+    RouteCircuit(long now) {
+        this.windowStart = new AtomicLong(now);
+    }
+
+    boolean isClosed() {
+        return state.get() == CLOSED;
+    }
+
+    /**
+     * 熔断是否到期，到期时只有一个调用方能成功转为HALF_OPEN
+     */
+    boolean tryHalfOpen(long now, long openDuration) {
+        return state.get() == OPEN && now - openedAt >= openDuration && state.compareAndSet(OPEN, HALF_OPEN);
+    }
+
+    /**
+     * 记录一次连接失败
+     *
+     * @return 本次失败是否触发了熔断
+     */
+    boolean onFailure(long now, long window, int threshold) {
+        int current = state.get();
+        if (current == HALF_OPEN) {
+            return open(HALF_OPEN, now);
+        }
+        if (current != CLOSED) {
+            return false;
+        }
+        long start = windowStart.get();
+        if (now - start >= window && windowStart.compareAndSet(start, now)) {
+            failures.set(0);
+        }
+        return failures.incrementAndGet() >= threshold && open(CLOSED, now);
+    }
+
+    /**
+     * 请求成功或探测成功，恢复为CLOSED
+     */
+    void onSuccess(long now) {
+        if (state.get() != CLOSED) {
+            failures.set(0);
+            windowStart.set(now);
+            state.set(CLOSED);
+        }
+    }
+
+    /**
+     * 探测失败(包括探测请求出现任何异常或被取消)，重新开始计时
+     */
+    void onProbeFailure(long now) {
+        open(HALF_OPEN, now);
+    }
+
+    private boolean open(int expect, long now) {
+        // 先写openedAt再切换状态，保证看到OPEN的线程一定能看到正确的openedAt
+        openedAt = now;
+        return state.compareAndSet(expect, OPEN);
+    }
+}
@@ -0,0 +1,101 @@
+package org.ywb.scgextend.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个路由的自适应并发限制(AIMD)
+ * <p>
+ * 计数全部使用{@link LongAdder}，不同event-loop线程之间写入不竞争同一个缓存行；
+ * 判断是否超过上限时读取的是近似值，并发放行时可能短暂超出几个请求，不影响保护效果。
+ * 每个统计窗口到期时，由CAS成功的一个线程根据窗口内的错误率和平均耗时调整上限：
+ * 过载时乘以backoffRatio；没有过载并且有请求被拒绝或超过一半的名额在使用时加上additiveIncrease。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+class RouteLimiter {
+
+    private final LongAdder inFlight = new LongAdder();
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder latencyNanos = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final AtomicLong windowStart;
+
+    private volatile int limit;
+
+    RouteLimiter(int initialLimit, long now) {
+        this.limit = initialLimit;
+        this.windowStart = new AtomicLong(now);
+    }
+
+    /**
+     * 获取一个并发名额
+     *
+     * @return 超过上限时返回false
+     */
+    boolean tryAcquire() {
+        if (inFlight.sum() >= limit) {
+            rejected.increment();
+            return false;
+        }
+        inFlight.increment();
+        return true;
+    }
+
+    /**
+     * 请求结束，归还名额
+     *
+     * @param latency 请求耗时，单位纳秒
+     */
+    void release(long latency) {
+        inFlight.decrement();
+        completed.increment();
+        latencyNanos.add(latency);
+    }
+
+    /**
+     * 记录一次上游失败
+     */
+    void onError() {
+        errors.increment();
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    long inFlight() {
+        return inFlight.sum();
+    }
+
+    /**
+     * 统计窗口到期时调整并发上限
+     *
+     * @return 本次是否进行了调整
+     */
+    boolean maybeAdjust(long now, AdaptiveConcurrencyProperties properties) {
+        long start = windowStart.get();
+        if (now - start < properties.getWindow().toNanos() || !windowStart.compareAndSet(start, now)) {
+            return false;
+        }
+        long count = completed.sumThenReset();
+        long errorCount = errors.sumThenReset();
+        long latency = latencyNanos.sumThenReset();
+        long rejectedCount = rejected.sumThenReset();
+        int current = limit;
+        if (count > 0 && (errorCount > count * properties.getErrorRateThreshold()
+                || latency / count > properties.getLatencyThreshold().toNanos())) {
+            limit = Math.max(properties.getMinLimit(), (int) (current * properties.getBackoffRatio()));
+        } else if (rejectedCount > 0 || inFlight.sum() * 2 >= current) {
+            limit = Math.min(properties.getMaxLimit(), current + properties.getAdditiveIncrease());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,174 @@
+package org.ywb.scgextend.filter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * 上游成功响应的缓存
+ * <p>
+ * {@link StaleResponseCacheFilter}记录幂等GET请求最近一次成功(200)的响应体，
+ * 上游连接失败、熔断或超时时，异常处理直接返回缓存的旧响应，并带上Warning: 110响应头。
+ * 按响应体字节数限制总大小，写入后超过ttl的响应不再返回。
+ * 带Authorization、Cookie的请求以及Set-Cookie、Cache-Control: private/no-store的响应不缓存，避免把用户私有数据返回给其他人。
+ * 只保存Content-Type和响应体，带Content-Encoding(压缩)或Vary的响应也不缓存：
+ * 回放时没有对应的响应头，且key中不包含Accept-Encoding等协商的请求头，客户端可能收到无法解析的响应体。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Component
+@EnableConfigurationProperties(StaleResponseCacheProperties.class)
+public class StaleResponseCache {
+
+    public static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    /**
+     * 查找异常原因的最大深度
+     */
+    private static final int MAX_CAUSE_DEPTH = 8;
+
+    private final StaleResponseCacheProperties properties;
+
+    private final Cache<String, CachedResponse> cache;
+
+    public StaleResponseCache(StaleResponseCacheProperties properties) {
+        this.properties = properties;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((String key, CachedResponse response) -> key.length() * 2 + response.body.length)
+                .expireAfterWrite(properties.getTtl().toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    /**
+     * 该请求的响应是否可以缓存
+     */
+    public boolean isCacheable(ServerWebExchange exchange) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getMethod() != HttpMethod.GET) {
+            return false;
+        }
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (Objects.isNull(route) || (!properties.getRoutes().isEmpty() && !properties.getRoutes().contains(route.getId()))) {
+            return false;
+        }
+        HttpHeaders headers = request.getHeaders();
+        return !headers.containsKey(HttpHeaders.AUTHORIZATION) && !headers.containsKey(HttpHeaders.COOKIE);
+    }
+
+    /**
+     * 响应头是否允许缓存
+     */
+    static boolean isStorable(HttpHeaders headers) {
+        if (headers.containsKey(HttpHeaders.SET_COOKIE) || headers.containsKey(HttpHeaders.CONTENT_ENCODING) || headers.containsKey(HttpHeaders.VARY)) {
+            return false;
+        }
+        String cacheControl = headers.getCacheControl();
+        return cacheControl == null || (!cacheControl.contains("no-store") && !cacheControl.contains("private"));
+    }
+
+    /**
+     * 缓存的key：路由id + 请求路径和参数
+     */
+    public static String key(ServerWebExchange exchange) {
+        Route route = exchange.getRequiredAttribute(GATEWAY_ROUTE_ATTR);
+        String rawQuery = exchange.getRequest().getURI().getRawQuery();
+        String path = exchange.getRequest().getURI().getRawPath();
+        return rawQuery == null ? route.getId() + " " + path : route.getId() + " " + path + "?" + rawQuery;
+    }
+
+    void put(String key, MediaType contentType, byte[] body) {
+        if (body.length <= properties.getMaxEntrySize().toBytes()) {
+            cache.put(key, new CachedResponse(contentType, body));
+        }
+    }
+
+    long maxEntrySize() {
+        return properties.getMaxEntrySize().toBytes();
+    }
+
+    /**
+     * 上游不可用时获取缓存的旧响应
+     *
+     * @param exchange 当前请求
+     * @param error    异常处理的异常
+     * @return 不是上游不可用的异常或者没有缓存时返回null
+     */
+    public CachedResponse getIfUpstreamUnavailable(ServerWebExchange exchange, Throwable error) {
+        if (!this.isCacheable(exchange) || !isUpstreamUnavailable(error)) {
+            return null;
+        }
+        return cache.getIfPresent(key(exchange));
+    }
+
+    /**
+     * 异常或者它的原因是否是连接失败、超时
+     */
+    static boolean isUpstreamUnavailable(Throwable error) {
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (current instanceof ConnectException
+                    || current instanceof TimeoutException
+                    || current instanceof io.netty.handler.timeout.TimeoutException
+                    || (current instanceof ResponseStatusException && ((ResponseStatusException) current).getStatus() == HttpStatus.GATEWAY_TIMEOUT)) {
+                return true;
+            }
+            current = current.getCause() == current ? null : current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * 缓存的响应
+     */
+    public static final class CachedResponse {
+
+        private final MediaType contentType;
+
+        private final byte[] body;
+
+        private final BodyInserter<byte[], ReactiveHttpOutputMessage> inserter;
+
+        CachedResponse(MediaType contentType, byte[] body) {
+            this.contentType = contentType;
+            this.body = body;
+            // 只包装字节数组，不复制内容
+            this.inserter = (outputMessage, context) -> outputMessage.writeWith(Mono.fromSupplier(() -> outputMessage.bufferFactory().wrap(body)));
+        }
+
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        public int length() {
+            return body.length;
+        }
+
+        public BodyInserter<byte[], ReactiveHttpOutputMessage> inserter() {
+            return inserter;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.ywb.scgextend.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * @version v1.0.0
+ * <p>
+ * 记录上游成功响应的过滤器
+ * 在写出响应之前包装response，写出的同时把响应体复制到{@link StaleResponseCache}。
+ * 流式响应(writeAndFlushWith)以及超过单个大小限制的响应不缓存。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Component
+@ConditionalOnProperty(prefix = "scg-extend.stale-cache", name = "enabled", havingValue = "true")
+public class StaleResponseCacheFilter implements GlobalFilter, Ordered {
+
+    /**
+     * 在{@link NettyWriteResponseFilter}之前执行，它写出的是包装后的response
+     */
+    public static final int STALE_CACHE_FILTER_ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private final StaleResponseCache staleResponseCache;
+
+    public StaleResponseCacheFilter(StaleResponseCache staleResponseCache) {
+        this.staleResponseCache = staleResponseCache;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!staleResponseCache.isCacheable(exchange)) {
+            return chain.filter(exchange);
+        }
+        CapturingResponse response = new CapturingResponse(exchange.getResponse(), StaleResponseCache.key(exchange));
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return STALE_CACHE_FILTER_ORDER;
+    }
+
+    private class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+
+        CapturingResponse(ServerHttpResponse delegate, String key) {
+            super(delegate);
+            this.key = key;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            long maxEntrySize = staleResponseCache.maxEntrySize();
+            if (getStatusCode() != HttpStatus.OK || !StaleResponseCache.isStorable(getHeaders()) || getHeaders().getContentLength() > maxEntrySize) {
+                return super.writeWith(body);
+            }
+            BodyCapture capture = new BodyCapture(getHeaders().getContentLength(), maxEntrySize);
+            return super.writeWith(Flux.from(body).doOnNext(capture::append))
+                    .doOnSuccess(v -> {
+                        if (!capture.overflow) {
+                            staleResponseCache.put(key, getHeaders().getContentType(), capture.toByteArray());
+                        }
+                    });
+        }
+    }
+
+    /**
+     * 复制写出的响应体，不改变DataBuffer的读位置
+     */
+    private static final class BodyCapture {
+
+        private final long maxSize;
+
+        private byte[] bytes;
+
+        private int size;
+
+        private boolean overflow;
+
+        BodyCapture(long contentLength, long maxSize) {
+            this.maxSize = maxSize;
+            this.bytes = new byte[contentLength > 0 ? (int) contentLength : 256];
+        }
+
+        void append(DataBuffer buffer) {
+            int readable = buffer.readableByteCount();
+            if (overflow || size + readable > maxSize) {
+                overflow = true;
+                bytes = null;
+                return;
+            }
+            if (size + readable > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(maxSize, Math.max(bytes.length * 2L, size + readable)));
+            }
+            ByteBuffer view = buffer.asByteBuffer();
+            view.get(bytes, size, readable);
+            size += readable;
+        }
+
+        byte[] toByteArray() {
+            return size == bytes.length ? bytes : Arrays.copyOf(bytes, size);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.ywb.scgextend.filter;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 上游失败时返回旧响应的缓存配置
+ *
+ * @author yuwenbo
+ */
+@Data
+@ConfigurationProperties(prefix = "scg-extend.stale-cache")
+public class StaleResponseCacheProperties {
+
+    /**
+     * 是否开启，默认关闭
+     */
+    private boolean enabled = false;
+
+    /**
+     * 开启缓存的路由id，为空时所有路由都开启
+     */
+    private Set<String> routes = new HashSet<>();
+
+    /**
+     * 缓存响应体的总大小
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 单个响应体超过该大小时不缓存
+     */
+    private DataSize maxEntrySize = DataSize.ofKilobytes(256);
+
+    /**
+     * 成功响应写入后，在上游失败时最多还能返回多久
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,40 @@
+package org.ywb.scgextend.handler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.integration.BlockHoundIntegration;
+
+/**
+ * @version v1.0.0
+ * <p>
+ * 异常处理方法阻塞调用检查
+ * 开启scg-extend.exception-handler.detect-blocking并引入blockhound依赖后，
+ * 在netty的IO线程以及reactor的非阻塞线程上发生阻塞调用时会抛出{@link reactor.blockhound.BlockingOperationError}，
+ * 处理方法中的阻塞调用会以{@link org.ywb.scgextend.exceptions.ExceptionHandlerInvokeException}的形式暴露出来。
+ * 只建议在测试、预发环境开启。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Slf4j
+@Component
+@ConditionalOnClass(name = "reactor.blockhound.BlockHound")
+@ConditionalOnProperty(prefix = "scg-extend.exception-handler", name = "detect-blocking", havingValue = "true")
+public class BlockingCallDetector implements BlockHoundIntegration {
+
+    public BlockingCallDetector() {
+        BlockHound.install(this);
+        log.info("-------------已开启阻塞调用检查-------------");
+    }
+
+    @Override
+    public void applyTo(BlockHound.Builder builder) {
+        builder.nonBlockingThreadPredicate(current -> current.or(thread -> thread.getName().startsWith("reactor-http")))
+                // 日志输出和异常日志采样的入队不算处理方法的阻塞调用
+                .allowBlockingCallsInside("ch.qos.logback.core.OutputStreamAppender", "writeBytes")
+                .allowBlockingCallsInside("org.ywb.scgextend.log.ErrorLogSampler", "error");
+    }
+}
@@ -0,0 +1,108 @@
+package org.ywb.scgextend.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.ywb.scgextend.common.ResultVO;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 常量{@link ResultVO}响应体缓存
+ * <p>
+ * 通过{@link ResultVO#constant(String, String)}创建的VO内容不会变化，
+ * 第一次使用时编码成UTF-8字节并缓存，之后每次只需写出共享的{@link DataBuffer}，
+ * 不再经过Jackson序列化。
+ * 缓存以VO对象本身为key（{@link ResultVO}没有重写equals），常量个数有限，不需要淘汰；
+ * 路由异常策略的常量由{@link RouteErrorPolicyRegistry}在多次刷新间复用，同样不会增长。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Component
+public class ErrorBodyCache {
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<ResultVO<?>, CachedBody> cachedBodies = new ConcurrentHashMap<>(16);
+
+    public ErrorBodyCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 获取常量VO的响应体
+     *
+     * @param result 异常处理方法的返回值
+     * @return 缓存的响应体，非常量VO返回null
+     */
+    public CachedBody get(Object result) {
+        if (!(result instanceof ResultVO) || !ResultVO.isConstant((ResultVO<?>) result)) {
+            return null;
+        }
+        ResultVO<?> resultVO = (ResultVO<?>) result;
+        CachedBody cachedBody = cachedBodies.get(resultVO);
+        if (cachedBody == null) {
+            cachedBody = cachedBodies.computeIfAbsent(resultVO, this::encode);
+        }
+        return cachedBody;
+    }
+
+    int size() {
+        return cachedBodies.size();
+    }
+
+    private CachedBody encode(ResultVO<?> resultVO) {
+        try {
+            return new CachedBody(objectMapper.writeValueAsBytes(resultVO));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("常量响应体序列化失败：" + resultVO, e);
+        }
+    }
+
+    /**
+     * 编码好的响应体
+     */
+    public static final class CachedBody {
+
+        private final byte[] bytes;
+
+        /**
+         * 堆外的共享副本，写出时只创建duplicate，不复制内容
+         * unreleasable保证写出后netty的release不会回收它
+         */
+        private final ByteBuf shared;
+
+        private final BodyInserter<byte[], ReactiveHttpOutputMessage> inserter;
+
+        CachedBody(byte[] bytes) {
+            this.bytes = bytes;
+            this.shared = Unpooled.unreleasableBuffer(Unpooled.directBuffer(bytes.length, bytes.length).writeBytes(bytes).asReadOnly());
+            this.inserter = (message, context) -> message.writeWith(Mono.fromSupplier(() -> this.slice(message.bufferFactory())));
+        }
+
+        public int length() {
+            return bytes.length;
+        }
+
+        public BodyInserter<byte[], ReactiveHttpOutputMessage> inserter() {
+            return inserter;
+        }
+
+        private DataBuffer slice(DataBufferFactory bufferFactory) {
+            if (bufferFactory instanceof NettyDataBufferFactory) {
+                return ((NettyDataBufferFactory) bufferFactory).wrap(shared.duplicate());
+            }
+            return bufferFactory.wrap(bytes);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package org.ywb.scgextend.handler;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.web.ResourceProperties;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.codec.CodecCustomizer;
 import org.springframework.boot.web.reactive.error.ErrorAttributes;
 import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
 import org.springframework.context.ApplicationContext;
@@ -12,6 +14,12 @@ import org.springframework.core.annotation.Order;
 import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.result.view.ViewResolver;
+import org.ywb.scgextend.common.ResultVO;
+import org.ywb.scgextend.event.ErrorEventRecorder;
+import org.ywb.scgextend.filter.AdaptiveConcurrencyLimiter;
+import org.ywb.scgextend.filter.StaleResponseCache;
+import org.ywb.scgextend.metrics.ErrorHotspots;
+import org.ywb.scgextend.metrics.ErrorMetrics;
 
 import java.util.Collections;
 import java.util.List;
@@ -20,7 +28,7 @@ import java.util.List;
  * @author yuwenbo
  */
 @Component
-@EnableConfigurationProperties({ServerProperties.class, ResourceProperties.class})
+@EnableConfigurationProperties({ServerProperties.class, ResourceProperties.class, ExceptionHandlerProperties.class})
 public class ErrorHandlerConfiguration {
 
     private final ServerProperties serverProperties;
@@ -45,14 +53,39 @@ public class ErrorHandlerConfiguration {
         this.serverCodecConfigurer = serverCodecConfigurer;
     }
 
+    /**
+     * 注册{@link ResultVO}专用的编码器，异常处理和controller返回ResultVO时都会使用
+     * static方法，避免和本类依赖的{@link ServerCodecConfigurer}形成循环依赖
+     */
+    @Bean
+    public static CodecCustomizer resultVOCodecCustomizer(ObjectMapper objectMapper) {
+        return configurer -> configurer.customCodecs().register(new ResultVOEncoder(objectMapper));
+    }
+
     @Bean
     @Order
-    public ErrorWebExceptionHandler errorWebExceptionHandler(ErrorAttributes errorAttributes) {
+    public ErrorWebExceptionHandler errorWebExceptionHandler(ErrorAttributes errorAttributes,
+                                                            ExceptionHandlerCore handlerCore,
+                                                            ErrorBodyCache errorBodyCache,
+                                                            ErrorMetrics errorMetrics,
+                                                            RouteErrorPolicyRegistry routeErrorPolicyRegistry,
+                                                            StaleResponseCache staleResponseCache,
+                                                            AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                                            ErrorEventRecorder errorEventRecorder,
+                                                            ErrorHotspots errorHotspots) {
         GlobalExceptionHandler exceptionHandler = new GlobalExceptionHandler(
                 errorAttributes,
                 this.resourceProperties,
                 this.serverProperties.getError(),
-                this.applicationContext);
+                this.applicationContext,
+                handlerCore,
+                errorBodyCache,
+                errorMetrics,
+                routeErrorPolicyRegistry,
+                staleResponseCache,
+                concurrencyLimiter,
+                errorEventRecorder,
+                errorHotspots);
         exceptionHandler.setViewResolvers(this.viewResolvers);
         exceptionHandler.setMessageWriters(this.serverCodecConfigurer.getWriters());
         exceptionHandler.setMessageReaders(this.serverCodecConfigurer.getReaders());
@@ -0,0 +1,863 @@
+package org.ywb.scgextend.handler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.ywb.scgextend.annotation.OffloadHandler;
+import org.ywb.scgextend.annotation.RetryableError;
+import org.ywb.scgextend.annotation.RootCause;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.common.ResultVO;
+import org.ywb.scgextend.common.SpringContextHolder;
+import org.ywb.scgextend.exceptions.ExceptionHandlerInvokeException;
+import org.ywb.scgextend.exceptions.GatewayException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * @version v1.0.0
+ * <p>
+ * 虽然spring webflux支持springMVC注解，
+ * 但是，Filter抛出的异常不属于MVC层，所以，处理Filter抛出的异常依旧不能用SpringMVC那一套注解
+ * 但是我们可以自己模仿做一套和MVC类似的注解
+ * 该处理类使用SpringMVC的注解
+ * 让用户可以无感知的像处理MVC层抛出的异常那样处理Filter抛出的异常
+ * __________________________________________
+ * |处理方法支持以下类型的入参，顺序不限：       |
+ * |被处理的异常(Throwable及其子类)            |
+ * |@RootCause标注的异常：异常链最底层的原因    |
+ * |ServerRequest、ServerWebExchange          |
+ * |ServerHttpRequest、HttpHeaders            |
+ * |Route：当前请求匹配到的路由                |
+ * |________________________________________|
+ * 参数的解析方式在注册时确定，调用时不再有注解扫描和类型判断；
+ * 不支持的参数类型在启动时直接报错。
+ * {@link ExceptionHandler}没有指定异常类型时，使用方法中异常参数的类型，此时异常参数也可以是异常实现的接口。
+ * 示例：
+ * <code>
+ * *@RestControllerAdvice
+ * public class GlobalExceptionHandlerAdvice {
+ * *@ExceptionHandler(Exception.class)
+ * public ResponseResult handler(Exception e) {
+ * return ResponseResult.createBySuccess("这是我的自定义异常");
+ * }
+ * }
+ * </code>
+ * 处理方法也可以返回{@link reactor.core.publisher.Mono}/{@link org.reactivestreams.Publisher}，
+ * 需要做IO(如查询错误信息翻译、调用审计服务)时不要阻塞，直接返回Mono，
+ * {@link GlobalExceptionHandler}会等待其结果后再写出响应。
+ * 处理上游瞬时故障的方法标注{@link RetryableError}，转发失败时先在网关内重试。
+ * 无法改成非阻塞的处理方法标注{@link OffloadHandler}，在IO线程之外执行并设置超时；
+ * 通过{@link #handlerException(Throwable)}直接调用时仍然在调用方的线程执行。
+ * 过滤器中大量抛出的业务拒绝使用{@link GatewayException#of}返回的共享实例，
+ * 处理方法返回{@link GatewayException#toResult()}时，每个实例只调用一次处理方法，之后直接复用结果，
+ * 所以这类处理方法中的副作用(日志、审计等)只会执行一次；需要每次执行的不要返回toResult()。
+ * 开启scg-extend.exception-handler.detect-blocking后可以通过BlockHound检查处理方法中的阻塞调用。
+ * 默认构建通过scg-extend-processor在编译期校验处理方法的签名并生成{@link ExceptionHandlerTable}，
+ * 注册时直接使用生成的表，不再反射扫描。
+ * </p>
+ * <p>
+ * 查找处理方法的优先级(从高到低)：
+ * 1.继承距离最近：异常类型本身距离为0，每经过一层父类或接口距离+1
+ * 2.距离相同时，父类上的处理方法优先于接口上的
+ * 3.仍然相同时，所在advice的{@link org.springframework.core.annotation.Order}值小的优先
+ * 4.仍然相同时(不同advice的Order值相同)，先注册的优先，启动时会打印警告
+ * 同一个advice中有多个方法处理同一个异常类型时启动失败，和Spring MVC的"Ambiguous @ExceptionHandler method"一致。
+ * 抛出的是包装类型的异常(见{@link ExceptionHandlerProperties#getUnwrapTypes()})且没有专门处理它的方法时，
+ * 最多拆开{@link ExceptionHandlerProperties#getUnwrapDepth()}层，使用cause查找处理方法。
+ * 每种异常类型的查找结果只计算一次，之后都是一次map查找。
+ * </p>
+ * @date 2019/9/10 11:15
+ */
+@Slf4j
+@Component
+public class ExceptionHandlerCore implements SmartInitializingSingleton {
+
+    /**
+     * {@link OffloadHandler}处理方法超时时的返回值
+     */
+    private static final ResultVO<Void> HANDLER_TIMEOUT = ResultVO.constant(ResultCode.SERVICE_EXCEPTION);
+
+    private static final Comparator<Method> METHOD_ORDER = Comparator.comparing(Method::getName)
+            .thenComparing(method -> Arrays.toString(method.getParameterTypes()));
+
+    private final ExceptionHandlerProperties properties;
+
+    /**
+     * 包装类型的异常
+     */
+    private final List<Class<?>> unwrapTypes;
+
+    /**
+     * 当前生效的注册表快照
+     * 快照构建完成后整体替换，请求线程只读取引用，不加锁，也不会看到构建了一半的注册表
+     * 注册完成前是空的注册表，启动阶段抛出的异常不会NPE
+     */
+    private final AtomicReference<Registry> registry = new AtomicReference<>(Registry.EMPTY);
+
+    public ExceptionHandlerCore() {
+        this(new ExceptionHandlerProperties());
+    }
+
+    @Autowired
+    public ExceptionHandlerCore(ExceptionHandlerProperties properties) {
+        this.properties = properties;
+        this.unwrapTypes = properties.getUnwrapTypes()
+                .stream()
+                .filter(className -> ClassUtils.isPresent(className, ExceptionHandlerCore.class.getClassLoader()))
+                .map(className -> ClassUtils.resolveClassName(className, ExceptionHandlerCore.class.getClassLoader()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 解析类上的注解
+     * 将处理异常的方法注册到map中
+     * 有编译期生成的{@link ExceptionHandlerTable}时直接使用，不再扫描所有方法
+     */
+    private static void register(Object exceptionAdvice, int order, Map<Class<?>, List<Registration>> handlerMap, int[] sequence) {
+        Class<?> adviceClass = ClassUtils.getUserClass(exceptionAdvice);
+        ExceptionHandlerTable table = generatedTable(adviceClass);
+        if (Objects.nonNull(table) && registerGenerated(table, exceptionAdvice, adviceClass, order, handlerMap, sequence)) {
+            return;
+        }
+        Method[] methods = exceptionAdvice.getClass().getMethods();
+        Map<Class<?>, Method> mapped = new HashMap<>(methods.length);
+        // getMethods的顺序不确定，排序后注册顺序和日志都是固定的
+        Arrays.stream(methods)
+                .filter(method -> !method.isBridge() && !method.isSynthetic())
+                .sorted(METHOD_ORDER)
+                .forEach(method -> {
+                    ExceptionHandler exceptionHandler = AnnotatedElementUtils.findMergedAnnotation(method, ExceptionHandler.class);
+                    if (Objects.isNull(exceptionHandler)) {
+                        return;
+                    }
+                    List<Class<?>> exceptionTypes = handledExceptionTypes(method, exceptionHandler);
+                    checkExceptionParameters(method, exceptionTypes);
+                    exceptionTypes.forEach(type -> checkAmbiguous(adviceClass, mapped, type, method));
+                    Node node = createNode(method, exceptionAdvice);
+                    exceptionTypes.forEach(type -> addRegistration(handlerMap, type, node, order, sequence));
+                });
+    }
+
+    /**
+     * 按生成的表注册
+     *
+     * @return 表中的方法在类中找不到(表和类不是同一次编译的产物)时返回false，改为反射注册
+     */
+    private static boolean registerGenerated(ExceptionHandlerTable table, Object exceptionAdvice, Class<?> adviceClass, int order,
+                                             Map<Class<?>, List<Registration>> handlerMap, int[] sequence) {
+        List<ExceptionHandlerTable.Entry> entries = table.entries();
+        Method[] methods = new Method[entries.size()];
+        for (int i = 0; i < methods.length; i++) {
+            ExceptionHandlerTable.Entry entry = entries.get(i);
+            methods[i] = ReflectionUtils.findMethod(adviceClass, entry.getMethodName(), entry.getParameterTypes());
+            if (Objects.isNull(methods[i])) {
+                log.warn("生成的异常处理方法表与[{}]不一致，找不到方法{}，改为反射注册", adviceClass.getName(), entry.getMethodName());
+                return false;
+            }
+        }
+        Map<Class<?>, Method> mapped = new HashMap<>(methods.length);
+        for (int i = 0; i < methods.length; i++) {
+            ExceptionHandlerTable.Entry entry = entries.get(i);
+            checkExceptionParameters(methods[i], Arrays.asList(entry.getExceptionTypes()));
+            for (Class<?> type : entry.getExceptionTypes()) {
+                checkAmbiguous(adviceClass, mapped, type, methods[i]);
+            }
+            Node node = createNode(methods[i], exceptionAdvice, entry.getInvoker());
+            for (Class<?> type : entry.getExceptionTypes()) {
+                addRegistration(handlerMap, type, node, order, sequence);
+            }
+        }
+        log.info("[{}]使用编译期生成的异常处理方法表，共{}个处理方法", adviceClass.getName(), methods.length);
+        return true;
+    }
+
+    /**
+     * 加载advice类编译期生成的{@link ExceptionHandlerTable}
+     *
+     * @param adviceClass advice类
+     * @return 没有生成时返回null
+     */
+    static ExceptionHandlerTable generatedTable(Class<?> adviceClass) {
+        String tableName = adviceClass.getName() + ExceptionHandlerTable.SUFFIX;
+        ClassLoader classLoader = adviceClass.getClassLoader();
+        if (!ClassUtils.isPresent(tableName, classLoader)) {
+            return null;
+        }
+        try {
+            Class<?> tableClass = ClassUtils.forName(tableName, classLoader);
+            if (!ExceptionHandlerTable.class.isAssignableFrom(tableClass)) {
+                return null;
+            }
+            return (ExceptionHandlerTable) ReflectionUtils.accessibleConstructor(tableClass).newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("加载生成的异常处理方法表[{}]失败，改为反射注册：{}", tableName, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 同一个advice中不能有多个方法处理同一个异常类型，否则生效的方法取决于方法的声明顺序
+     */
+    private static void checkAmbiguous(Class<?> adviceClass, Map<Class<?>, Method> mapped, Class<?> type, Method method) {
+        Method exist = mapped.putIfAbsent(type, method);
+        if (Objects.nonNull(exist) && !exist.equals(method)) {
+            throw new IllegalStateException("异常类型[" + type.getName() + "]在[" + adviceClass.getName() + "]中存在多个处理方法：" + exist + "，" + method);
+        }
+    }
+
+    private static void addRegistration(Map<Class<?>, List<Registration>> handlerMap, Class<?> type, Node node, int order, int[] sequence) {
+        List<Registration> registrations = handlerMap.computeIfAbsent(type, t -> new ArrayList<>(1));
+        if (!registrations.isEmpty() && registrations.get(0).order == order) {
+            log.warn("异常类型[{}]存在多个相同优先级的处理方法，生效的是：{}，忽略：{}", type.getName(), registrations.get(0).node.method, node.method);
+        }
+        registrations.add(new Registration(type, node, order, sequence[0]++));
+    }
+
+    private static int orderOf(Object exceptionAdvice) {
+        if (exceptionAdvice instanceof Ordered) {
+            return ((Ordered) exceptionAdvice).getOrder();
+        }
+        return OrderUtils.getOrder(ClassUtils.getUserClass(exceptionAdvice), Ordered.LOWEST_PRECEDENCE);
+    }
+
+    /**
+     * 为处理方法生成调用计划：参数解析方式、响应状态码以及调用句柄
+     *
+     * @param method  处理异常的方法
+     * @param thisObj 方法所在的实例
+     * @return node
+     */
+    static Node createNode(Method method, Object thisObj) {
+        return createNode(method, thisObj, null);
+    }
+
+    /**
+     * 为处理方法生成调用计划
+     *
+     * @param method           处理异常的方法
+     * @param thisObj          方法所在的实例
+     * @param generatedInvoker 编译期生成的调用入口，为null时绑定{@link MethodHandle}
+     * @return node
+     */
+    static Node createNode(Method method, Object thisObj, ExceptionHandlerTable.Invoker generatedInvoker) {
+        Parameter[] parameters = method.getParameters();
+        HandlerArgumentResolver[] resolvers = new HandlerArgumentResolver[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            resolvers[i] = HandlerArgumentResolver.of(method, parameters[i]);
+        }
+        ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(method, ResponseStatus.class);
+        if (Objects.isNull(responseStatus)) {
+            responseStatus = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), ResponseStatus.class);
+        }
+        HttpStatus status = Objects.nonNull(responseStatus) ? responseStatus.code() : null;
+        // 只有一个异常参数是最常见的情况，直接以(Throwable)Object调用，不需要参数数组
+        boolean single = resolvers.length == 1 && resolvers[0] == HandlerArgumentResolver.EXCEPTION;
+        Node node;
+        if (Objects.nonNull(generatedInvoker)) {
+            node = new Node(method, thisObj, status, null, single ? null : resolvers);
+            node.generatedInvoker = generatedInvoker;
+        } else {
+            node = single
+                    ? new Node(method, thisObj, status, bindInvoker(method, thisObj), null)
+                    : new Node(method, thisObj, status, bindSpreadInvoker(method, thisObj), resolvers);
+        }
+        OffloadHandler offloadHandler = AnnotatedElementUtils.findMergedAnnotation(method, OffloadHandler.class);
+        if (Objects.isNull(offloadHandler)) {
+            offloadHandler = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), OffloadHandler.class);
+        }
+        if (Objects.nonNull(offloadHandler)) {
+            node.offloadTimeout = Duration.ofMillis(offloadHandler.timeoutMillis());
+            node.timeoutError = new HandledError(null, HANDLER_TIMEOUT, method);
+        }
+        node.retryable = AnnotatedElementUtils.hasAnnotation(method, RetryableError.class)
+                || AnnotatedElementUtils.hasAnnotation(method.getDeclaringClass(), RetryableError.class);
+        return node;
+    }
+
+    /**
+     * 处理方法能够处理的异常类型
+     * 注解中没有指定时，使用方法中异常参数的类型，异常参数可以是异常实现的接口
+     */
+    private static List<Class<?>> handledExceptionTypes(Method method, ExceptionHandler exceptionHandler) {
+        if (exceptionHandler.value().length > 0) {
+            return Arrays.asList(exceptionHandler.value());
+        }
+        List<Class<?>> exceptionTypes = new ArrayList<>(1);
+        for (Parameter parameter : method.getParameters()) {
+            if (HandlerArgumentResolver.of(method, parameter) == HandlerArgumentResolver.EXCEPTION) {
+                exceptionTypes.add(parameter.getType());
+            }
+        }
+        if (exceptionTypes.isEmpty()) {
+            throw new IllegalStateException("无法确定异常处理方法处理的异常类型：" + method);
+        }
+        return exceptionTypes;
+    }
+
+    /**
+     * 校验异常参数能否接收处理的异常，和编译期处理器的校验一致
+     * 同一个异常会传给所有的异常参数，处理的每个异常类型都必须能赋值给每个异常参数；
+     * 异常链最底层的原因可能是任意异常，{@code @RootCause}参数只能声明为{@link Throwable}。
+     * 不校验的话，注册能成功，运行时调用处理方法才会类型转换失败
+     */
+    private static void checkExceptionParameters(Method method, List<Class<?>> exceptionTypes) {
+        for (Parameter parameter : method.getParameters()) {
+            HandlerArgumentResolver resolver = HandlerArgumentResolver.of(method, parameter);
+            if (resolver == HandlerArgumentResolver.ROOT_CAUSE && Throwable.class != parameter.getType()) {
+                throw new IllegalStateException("@RootCause参数的类型只能是Throwable：" + parameter.getType().getName() + "，方法：" + method);
+            }
+            if (resolver != HandlerArgumentResolver.EXCEPTION) {
+                continue;
+            }
+            for (Class<?> exceptionType : exceptionTypes) {
+                if (!parameter.getType().isAssignableFrom(exceptionType)) {
+                    throw new IllegalStateException("处理的异常类型" + exceptionType.getName() + "不能传给"
+                            + parameter.getType().getName() + "类型的参数，方法：" + method);
+                }
+            }
+        }
+    }
+
+    /**
+     * 将处理方法和所在实例绑定成{@link MethodHandle}
+     * 只在注册时创建一次，调用时不再有反射的访问检查和参数装箱
+     *
+     * @param method  处理异常的方法
+     * @param thisObj 方法所在的实例
+     * @return (Throwable)Object 形式的调用句柄
+     */
+    static MethodHandle bindInvoker(Method method, Object thisObj) {
+        try {
+            return unreflect(method, thisObj).asType(MethodType.methodType(Object.class, Throwable.class));
+        } catch (IllegalArgumentException | WrongMethodTypeException e) {
+            throw new IllegalStateException("异常处理方法签名不合法：" + method, e);
+        }
+    }
+
+    /**
+     * 将处理方法和所在实例绑定成以参数数组调用的{@link MethodHandle}
+     *
+     * @param method  处理异常的方法
+     * @param thisObj 方法所在的实例
+     * @return (Object[])Object 形式的调用句柄
+     */
+    static MethodHandle bindSpreadInvoker(Method method, Object thisObj) {
+        try {
+            return unreflect(method, thisObj)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalArgumentException | WrongMethodTypeException e) {
+            throw new IllegalStateException("异常处理方法签名不合法：" + method, e);
+        }
+    }
+
+    private static MethodHandle unreflect(Method method, Object thisObj) {
+        ReflectionUtils.makeAccessible(method);
+        try {
+            return MethodHandles.lookup().unreflect(method).bindTo(thisObj);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("异常处理方法签名不合法：" + method, e);
+        }
+    }
+
+    /**
+     * 根据异常对象获取解决异常的方法
+     *
+     * @param throwable 异常对象
+     * @return handler method
+     */
+    private Node getHandlerExceptionMethodNode(Throwable throwable) {
+        return this.dispatchOf(registry.get(), throwable.getClass()).node;
+    }
+
+    /**
+     * 从分发表获取异常类型的处理方法，第一次出现的类型计算后放入分发表
+     * 命中时只有一次map查找，不产生任何对象
+     */
+    private Dispatch dispatchOf(Registry registry, Class<?> throwableClass) {
+        Dispatch dispatch = registry.dispatchTable.get(throwableClass);
+        if (dispatch == null) {
+            dispatch = this.resolveDispatch(registry.handlerMap, throwableClass);
+            Dispatch previous = registry.dispatchTable.putIfAbsent(throwableClass, dispatch);
+            if (previous != null) {
+                dispatch = previous;
+            }
+        }
+        return dispatch;
+    }
+
+    /**
+     * 按优先级计算异常类型的处理方法，只在该异常类型第一次出现时调用
+     * 按继承距离逐层遍历父类和接口，同一层中父类排在接口前面
+     *
+     * @param handlerMap     注册表
+     * @param throwableClass 异常类型
+     * @return 找不到时返回{@link Dispatch#NONE}
+     */
+    private Dispatch resolveDispatch(Map<Class<?>, List<Registration>> handlerMap, Class<?> throwableClass) {
+        Registration best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        Set<Class<?>> visited = new HashSet<>();
+        List<Class<?>> level = Collections.singletonList(throwableClass);
+        for (int distance = 0; !level.isEmpty() && distance <= bestDistance; distance++) {
+            List<Class<?>> next = new ArrayList<>();
+            for (Class<?> type : level) {
+                if (!visited.add(type)) {
+                    continue;
+                }
+                List<Registration> registrations = handlerMap.get(type);
+                if (Objects.nonNull(registrations) && (best == null || registrations.get(0).precedes(best, distance, bestDistance))) {
+                    best = registrations.get(0);
+                    bestDistance = distance;
+                }
+                if (type.getSuperclass() != null) {
+                    next.add(type.getSuperclass());
+                }
+                next.addAll(Arrays.asList(type.getInterfaces()));
+            }
+            level = next;
+        }
+        boolean unwrap = this.isWrapper(throwableClass) && (best == null || !this.isWrapper(best.type));
+        if (best == null && !unwrap) {
+            return Dispatch.NONE;
+        }
+        return new Dispatch(best != null ? best.node : null, unwrap);
+    }
+
+    private boolean isWrapper(Class<?> throwableClass) {
+        for (Class<?> unwrapType : unwrapTypes) {
+            if (unwrapType.isAssignableFrom(throwableClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 拆开包装类型的异常
+     * 包装异常没有专门的处理方法，并且cause有处理方法时使用cause，最多拆开{@link ExceptionHandlerProperties#getUnwrapDepth()}层
+     *
+     * @param throwable 抛出的异常
+     * @return 实际需要处理的异常
+     */
+    public Throwable unwrap(Throwable throwable) {
+        Registry registry = this.registry.get();
+        Throwable current = throwable;
+        for (int depth = 0; depth < properties.getUnwrapDepth(); depth++) {
+            Throwable cause = current.getCause();
+            if (cause == null || cause == current || !this.dispatchOf(registry, current.getClass()).unwrap
+                    || this.dispatchOf(registry, cause.getClass()).node == null) {
+                break;
+            }
+            current = cause;
+        }
+        return current;
+    }
+
+    /**
+     * 清空当前快照中已解析的异常类型，下次出现时重新计算
+     */
+    public void clearResolvedCache() {
+        registry.get().dispatchTable.clear();
+    }
+
+    /**
+     * 全局开关只由容器中的实例按配置设置一次，测试等场景直接new的实例不影响其他代码
+     */
+    @PostConstruct
+    public void applyGatewayExceptionStackTrace() {
+        GatewayException.setStackTraceEnabled(properties.isGatewayExceptionStackTrace());
+    }
+
+    /**
+     * 所有单例创建完成后立即构建注册表，不必等到应用启动完成
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        this.refresh();
+    }
+
+    /**
+     * 配置刷新后重新构建注册表，不需要重启网关
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefreshScopeRefreshed() {
+        this.refresh();
+    }
+
+    /**
+     * 重新获取容器中所有的异常处理对象并构建注册表
+     * 新增、修改了{@link RestControllerAdvice}后调用
+     */
+    public void refresh() {
+        Map<String, Object> beans = SpringContextHolder.getBeansWithAnnotation(RestControllerAdvice.class);
+        log.info("-------------异常处理对象获取完毕-------------");
+        this.registerAll(beans.values());
+        log.info("-------------异常处理方法注册完毕-------------");
+    }
+
+    /**
+     * 注册所有异常处理对象
+     * 在新的快照上完成注册和所有注册类型的预计算后整体替换，正在处理的请求继续使用旧快照
+     *
+     * @param exceptionAdvices 标注了{@link RestControllerAdvice}的对象
+     */
+    synchronized void registerAll(Collection<?> exceptionAdvices) {
+        List<Object> sortedAdvices = new ArrayList<>(exceptionAdvices);
+        AnnotationAwareOrderComparator.sort(sortedAdvices);
+        Map<Class<?>, List<Registration>> handlerMap = new HashMap<>(16);
+        int[] sequence = new int[1];
+        sortedAdvices.forEach(exceptionAdvice -> register(exceptionAdvice, orderOf(exceptionAdvice), handlerMap, sequence));
+        Registry newRegistry = new Registry(handlerMap);
+        // 预先计算所有注册过的异常类型
+        handlerMap.keySet().forEach(type -> this.dispatchOf(newRegistry, type));
+        registry.set(newRegistry);
+    }
+
+    /**
+     * 对外暴露的处理异常的方法
+     * 没有请求上下文，处理方法中请求相关的参数为null
+     *
+     * @param throwable 处理的异常
+     * @return 处理结果
+     */
+    public HandledError handlerException(Throwable throwable) {
+        return this.handlerException(throwable, null);
+    }
+
+    /**
+     * 对外暴露的处理异常的方法
+     *
+     * @param throwable 处理的异常
+     * @param request   出现异常的请求
+     * @return 处理结果
+     */
+    public HandledError handlerException(Throwable throwable, ServerRequest request) {
+        Throwable target = this.unwrap(throwable);
+        return this.invokeHandler(this.resolveHandler(target), target, request);
+    }
+
+    /**
+     * 异常的处理方法是否标注了{@link RetryableError}，供转发时的重试判断
+     *
+     * @param throwable 转发时的异常，包装异常会先拆开
+     * @return 没有处理方法时返回false
+     */
+    public boolean isRetryable(Throwable throwable) {
+        Node exceptionMethodNode = this.getHandlerExceptionMethodNode(this.unwrap(throwable));
+        return Objects.nonNull(exceptionMethodNode) && exceptionMethodNode.retryable;
+    }
+
+    /**
+     * 获取处理该异常的方法
+     *
+     * @param throwable 处理的异常
+     * @return handler method
+     */
+    Node resolveHandler(Throwable throwable) {
+        Node exceptionMethodNode = this.getHandlerExceptionMethodNode(throwable);
+        if (Objects.isNull(exceptionMethodNode)) {
+            log.error("未定义异常处理方法，处理异常失败,异常处理信息如下：{}", throwable.getMessage());
+            throw new RuntimeException("未定义异常处理方法，处理异常失败");
+        }
+        return exceptionMethodNode;
+    }
+
+    /**
+     * 调用处理异常的方法
+     *
+     * @param exceptionMethodNode {@link #resolveHandler(Throwable)}获取的处理方法
+     * @param throwable           处理的异常
+     * @param request             出现异常的请求，可以为null
+     * @return 处理结果
+     */
+    HandledError invokeHandler(Node exceptionMethodNode, Throwable throwable, ServerRequest request) {
+        //共享的GatewayException处理过一次后直接复用结果，不再调用处理方法(处理方法的副作用也不再执行)
+        GatewayException shared = throwable instanceof GatewayException && ((GatewayException) throwable).isShared()
+                ? (GatewayException) throwable : null;
+        if (shared != null) {
+            HandledError handledError = exceptionMethodNode.sharedErrors.get(shared);
+            if (handledError != null) {
+                return handledError;
+            }
+        }
+        Object returnResult;
+        try {
+            returnResult = exceptionMethodNode.invoke(throwable, request);
+        } catch (Throwable e) {
+            throw new ExceptionHandlerInvokeException(exceptionMethodNode.method, throwable, e);
+        }
+        HandledError handledError = exceptionMethodNode.handled(returnResult);
+        if (shared != null && returnResult == shared.toResult()) {
+            exceptionMethodNode.sharedErrors.put(shared, handledError);
+        }
+        return handledError;
+    }
+
+    /**
+     * 在{@link Schedulers#boundedElastic()}上调用标注了{@link OffloadHandler}的处理方法
+     * 超时后不再等待处理方法，返回{@link ResultCode#SERVICE_EXCEPTION}
+     *
+     * @param exceptionMethodNode {@link #resolveHandler(Throwable)}获取的处理方法
+     * @param throwable           处理的异常
+     * @param request             出现异常的请求
+     * @return 处理结果
+     */
+    Mono<HandledError> invokeOffloaded(Node exceptionMethodNode, Throwable throwable, ServerRequest request) {
+        return Mono.fromCallable(() -> this.invokeInterruptibly(exceptionMethodNode, throwable, request))
+                .subscribeOn(Schedulers.boundedElastic())
+                .timeout(exceptionMethodNode.offloadTimeout)
+                .onErrorResume(TimeoutException.class, e -> {
+                    log.warn("异常处理方法执行超时({}ms)：{}", exceptionMethodNode.offloadTimeout.toMillis(), exceptionMethodNode.method);
+                    return Mono.just(exceptionMethodNode.timeoutError);
+                });
+    }
+
+    /**
+     * 超时后worker线程会被中断，此时下游已经取消，处理方法因中断抛出的异常不再传递
+     */
+    private HandledError invokeInterruptibly(Node exceptionMethodNode, Throwable throwable, ServerRequest request) {
+        try {
+            return this.invokeHandler(exceptionMethodNode, throwable, request);
+        } catch (ExceptionHandlerInvokeException e) {
+            if (e.getCause() instanceof InterruptedException) {
+                return exceptionMethodNode.timeoutError;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 用于存放方法和方法所在的实例
+     */
+    static class Node {
+        Node(Method method, Object thisObj, HttpStatus status, MethodHandle invoker, HandlerArgumentResolver[] resolvers) {
+            this.method = method;
+            this.thisObj = thisObj;
+            this.status = status;
+            this.invoker = invoker;
+            this.resolvers = resolvers;
+        }
+
+        /**
+         * 状态码
+         */
+        HttpStatus status;
+        /**
+         * 处理异常的方法
+         */
+        Method method;
+        /**
+         * 方法所在的实例
+         */
+        Object thisObj;
+        /**
+         * 绑定了实例的调用句柄，使用生成的调用入口时为null
+         * resolvers为null时签名为(Throwable)Object，否则为(Object[])Object
+         */
+        MethodHandle invoker;
+        /**
+         * 编译期生成的调用入口，不为null时代替invoker
+         */
+        ExceptionHandlerTable.Invoker generatedInvoker;
+        /**
+         * 参数解析方式，和方法参数一一对应；只有一个异常参数时为null
+         */
+        HandlerArgumentResolver[] resolvers;
+        /**
+         * 最近一次返回常量VO时的处理结果，再次返回同一个常量时复用
+         * 对象不可变，多线程覆盖写入不影响正确性
+         */
+        volatile HandledError constantError;
+        /**
+         * 共享的{@link GatewayException}实例对应的处理结果，只缓存返回了{@link GatewayException#toResult()}的结果
+         * 共享实例的数量不超过状态码的数量
+         */
+        final Map<GatewayException, HandledError> sharedErrors = new ConcurrentHashMap<>(16);
+        /**
+         * 标注了{@link OffloadHandler}时的超时时间，为null时在当前线程执行
+         */
+        Duration offloadTimeout;
+        /**
+         * 执行超时时的处理结果
+         */
+        HandledError timeoutError;
+        /**
+         * 是否标注了{@link RetryableError}
+         */
+        boolean retryable;
+
+        boolean isOffloaded() {
+            return offloadTimeout != null;
+        }
+
+        Object invoke(Throwable throwable, ServerRequest request) throws Throwable {
+            if (resolvers == null) {
+                if (generatedInvoker != null) {
+                    return generatedInvoker.invoke(thisObj, throwable, null);
+                }
+                return (Object) invoker.invokeExact(throwable);
+            }
+            Object[] args = new Object[resolvers.length];
+            for (int i = 0; i < resolvers.length; i++) {
+                args[i] = resolvers[i].resolve(throwable, request);
+            }
+            if (generatedInvoker != null) {
+                return generatedInvoker.invoke(thisObj, throwable, args);
+            }
+            return (Object) invoker.invokeExact(args);
+        }
+
+        HandledError handled(Object result) {
+            HandledError cached = constantError;
+            if (cached != null && cached.getResult() == result) {
+                return cached;
+            }
+            HandledError handledError = new HandledError(status, result, method);
+            if (result instanceof ResultVO && ResultVO.isConstant((ResultVO<?>) result)) {
+                constantError = handledError;
+            }
+            return handledError;
+        }
+    }
+
+
+    /**
+     * 注册表快照
+     * handlerMap构建完成后不再修改；dispatchTable只追加由handlerMap计算出的结果，多线程计算出的结果相同
+     */
+    private static final class Registry {
+
+        static final Registry EMPTY = new Registry(Collections.emptyMap());
+
+        /**
+         * key是处理异常的类型
+         * value是处理该类型的方法，按优先级排好序，第一个生效
+         */
+        final Map<Class<?>, List<Registration>> handlerMap;
+
+        /**
+         * 分发表
+         * key是抛出异常的具体类型，value是按优先级计算出的处理方法
+         * 没有处理方法的类型缓存为{@link Dispatch#NONE}，避免重复计算
+         */
+        final ConcurrentHashMap<Class<?>, Dispatch> dispatchTable = new ConcurrentHashMap<>(64);
+
+        Registry(Map<Class<?>, List<Registration>> handlerMap) {
+            this.handlerMap = handlerMap;
+        }
+    }
+
+    /**
+     * 处理方法的注册信息
+     */
+    private static final class Registration {
+
+        final Class<?> type;
+
+        final Node node;
+
+        /**
+         * 所在advice的优先级
+         */
+        final int order;
+
+        /**
+         * 注册顺序
+         */
+        final int sequence;
+
+        Registration(Class<?> type, Node node, int order, int sequence) {
+            this.type = type;
+            this.node = node;
+            this.order = order;
+            this.sequence = sequence;
+        }
+
+        /**
+         * 是否比当前选中的处理方法优先
+         */
+        boolean precedes(Registration best, int distance, int bestDistance) {
+            if (distance != bestDistance) {
+                return distance < bestDistance;
+            }
+            if (type.isInterface() != best.type.isInterface()) {
+                return !type.isInterface();
+            }
+            if (order != best.order) {
+                return order < best.order;
+            }
+            return sequence < best.sequence;
+        }
+    }
+
+    /**
+     * 分发表中的一项
+     */
+    private static final class Dispatch {
+
+        static final Dispatch NONE = new Dispatch(null, false);
+
+        /**
+         * 处理方法，没有时为null
+         */
+        final Node node;
+
+        /**
+         * 是否需要拆开包装异常，使用cause查找处理方法
+         */
+        final boolean unwrap;
+
+        Dispatch(Node node, boolean unwrap) {
+            this.node = node;
+            this.unwrap = unwrap;
+        }
+    }
+
+
+    /**
+     * 获取该类的class以及所有父的class
+     *
+     * @param clazz this.class
+     * @return list
+     */
+    public ArrayList<Class<?>> getSuperClass(Class<?> clazz) {
+        ArrayList<Class<?>> classes = new ArrayList<>();
+        classes.add(clazz);
+        Class<?> suCl = clazz.getSuperclass();
+        while (suCl != null) {
+            classes.add(suCl);
+            suCl = suCl.getSuperclass();
+        }
+        return classes;
+    }
+}
@@ -0,0 +1,45 @@
+package org.ywb.scgextend.handler;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 异常处理配置
+ *
+ * @author yuwenbo
+ */
+@Data
+@ConfigurationProperties(prefix = "scg-extend.exception-handler")
+public class ExceptionHandlerProperties {
+
+    /**
+     * 包装类型的异常，没有专门处理它的方法时，使用其cause查找处理方法
+     * 不存在的类会被忽略
+     */
+    private List<String> unwrapTypes = new ArrayList<>(Arrays.asList(
+            "reactor.core.Exceptions$ReactiveException",
+            "java.util.concurrent.CompletionException",
+            "java.util.concurrent.ExecutionException",
+            "java.lang.reflect.UndeclaredThrowableException",
+            "java.lang.reflect.InvocationTargetException"));
+
+    /**
+     * 最多拆开多少层包装异常
+     */
+    private int unwrapDepth = 3;
+
+    /**
+     * 是否通过BlockHound检查处理方法中的阻塞调用，见{@link BlockingCallDetector}
+     */
+    private boolean detectBlocking = false;
+
+    /**
+     * 通过构造方法创建的{@link org.ywb.scgextend.exceptions.GatewayException}是否收集异常栈
+     * 关闭后抛出业务异常不再有收集异常栈的开销，{@link org.ywb.scgextend.exceptions.GatewayException#of}返回的共享实例始终不收集
+     */
+    private boolean gatewayExceptionStackTrace = true;
+}
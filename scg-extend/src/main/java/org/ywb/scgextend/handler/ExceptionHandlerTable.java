@@ -0,0 +1,88 @@
+package org.ywb.scgextend.handler;
+
+import java.util.List;
+
+/**
+ * 编译期生成的异常处理方法表
+ * <p>
+ * 由scg-extend-processor在编译时为每个{@link org.springframework.web.bind.annotation.RestControllerAdvice}类生成，
+ * 类名为advice类的二进制名加{@link #SUFFIX}，编译时已经校验过处理方法的签名。
+ * {@link ExceptionHandlerCore}注册时优先使用生成的表，不再反射扫描advice的所有方法；
+ * 调用时直接调用advice的方法，不经过{@link java.lang.invoke.MethodHandle}。
+ * 没有生成的表时(如编译时没有使用处理器、advice使用了组合注解)仍然通过反射注册，行为相同。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+public interface ExceptionHandlerTable {
+
+    /**
+     * 生成的类名后缀
+     */
+    String SUFFIX = "_ExceptionHandlers";
+
+    /**
+     * advice类中所有的异常处理方法
+     *
+     * @return 处理方法
+     */
+    List<Entry> entries();
+
+    /**
+     * 一个异常处理方法
+     */
+    final class Entry {
+
+        private final String methodName;
+
+        private final Class<?>[] parameterTypes;
+
+        private final Class<?>[] exceptionTypes;
+
+        private final Invoker invoker;
+
+        /**
+         * @param methodName     方法名
+         * @param parameterTypes 方法的参数类型
+         * @param exceptionTypes 处理的异常类型，注解中没有指定时是由异常参数推断出的类型
+         * @param invoker        直接调用方法的入口
+         */
+        public Entry(String methodName, Class<?>[] parameterTypes, Class<?>[] exceptionTypes, Invoker invoker) {
+            this.methodName = methodName;
+            this.parameterTypes = parameterTypes;
+            this.exceptionTypes = exceptionTypes;
+            this.invoker = invoker;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        public Class<?>[] getParameterTypes() {
+            return parameterTypes;
+        }
+
+        public Class<?>[] getExceptionTypes() {
+            return exceptionTypes;
+        }
+
+        public Invoker getInvoker() {
+            return invoker;
+        }
+    }
+
+    /**
+     * 调用异常处理方法
+     */
+    @FunctionalInterface
+    interface Invoker {
+
+        /**
+         * @param advice    方法所在的实例
+         * @param throwable 被处理的异常，只有一个异常参数时直接使用
+         * @param args      按参数顺序解析好的参数，只有一个异常参数时为null
+         * @return 处理方法的返回值
+         */
+        Object invoke(Object advice, Throwable throwable, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,233 @@
+package org.ywb.scgextend.handler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.web.ErrorProperties;
+import org.springframework.boot.autoconfigure.web.ResourceProperties;
+import org.springframework.boot.autoconfigure.web.reactive.error.DefaultErrorWebExceptionHandler;
+import org.springframework.boot.web.error.ErrorAttributeOptions;
+import org.springframework.boot.web.reactive.error.ErrorAttributes;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.*;
+import org.ywb.scgextend.common.ResultVO;
+import org.ywb.scgextend.event.ErrorEventRecorder;
+import org.ywb.scgextend.filter.AdaptiveConcurrencyLimiter;
+import org.ywb.scgextend.filter.RequestStartWebFilter;
+import org.ywb.scgextend.filter.StaleResponseCache;
+import org.ywb.scgextend.metrics.ErrorHotspots;
+import org.ywb.scgextend.metrics.ErrorMetrics;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * @version v1.0.0
+ * <p>
+ * 全局异常处理
+ * </p>
+ * @date 2019/9/1 13:28
+ */
+@Slf4j
+public class GlobalExceptionHandler extends DefaultErrorWebExceptionHandler {
+
+    /**
+     * 返回旧响应时指标中的code
+     */
+    private static final String STALE_CODE = "stale";
+
+    private final ExceptionHandlerCore handlerCore;
+
+    private final ErrorBodyCache errorBodyCache;
+
+    private final ErrorMetrics errorMetrics;
+
+    private final RouteErrorPolicyRegistry routeErrorPolicyRegistry;
+
+    private final StaleResponseCache staleResponseCache;
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private final ErrorEventRecorder errorEventRecorder;
+
+    private final ErrorHotspots errorHotspots;
+
+    public GlobalExceptionHandler(ErrorAttributes errorAttributes, ResourceProperties resourceProperties, ErrorProperties errorProperties, ApplicationContext applicationContext,
+                                  ExceptionHandlerCore handlerCore,
+                                  ErrorBodyCache errorBodyCache,
+                                  ErrorMetrics errorMetrics,
+                                  RouteErrorPolicyRegistry routeErrorPolicyRegistry,
+                                  StaleResponseCache staleResponseCache,
+                                  AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                  ErrorEventRecorder errorEventRecorder,
+                                  ErrorHotspots errorHotspots) {
+        super(errorAttributes, resourceProperties, errorProperties, applicationContext);
+        this.handlerCore = handlerCore;
+        this.errorBodyCache = errorBodyCache;
+        this.errorMetrics = errorMetrics;
+        this.routeErrorPolicyRegistry = routeErrorPolicyRegistry;
+        this.staleResponseCache = staleResponseCache;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.errorEventRecorder = errorEventRecorder;
+        this.errorHotspots = errorHotspots;
+    }
+
+    /**
+     * 统一处理异常信息
+     */
+    @Override
+    @SuppressWarnings(value = "unchecked")
+    protected Map<String, Object> getErrorAttributes(ServerRequest request, boolean includeStackTrace) {
+        Throwable error = super.getError(request);
+        //调用处理异常的方法，并将对象转换成map
+        return handlerCore.handlerException(error, request).toAttributes();
+    }
+
+    /**
+     * Extract the error attributes from the current request, to be used to populate error
+     * views or JSON payloads.
+     * @param request the source request
+     * @param options options to control error attributes
+     * @return the error attributes as a Map
+     */
+    @Override
+    protected Map<String, Object> getErrorAttributes(ServerRequest request, ErrorAttributeOptions options) {
+        Throwable error = super.getError(request);
+        return handlerCore.handlerException(error, request).toAttributes();
+    }
+
+    @Override
+    protected RouterFunction<ServerResponse> getRoutingFunction(ErrorAttributes errorAttributes) {
+        return RouterFunctions.route(RequestPredicates.all(), this::renderErrorResponse);
+    }
+
+    @Override
+    protected Mono<ServerResponse> renderErrorResponse(ServerRequest request) {
+        //从请求进入网关开始计算耗时
+        long requestStart = RequestStartWebFilter.startOf(request.exchange());
+        String routeId = routeId(request);
+        Throwable originalError = super.getError(request);
+        //上游不可用时，返回该请求最近一次成功的响应
+        StaleResponseCache.CachedResponse staleResponse = staleResponseCache.getIfUpstreamUnavailable(request.exchange(), originalError);
+        if (Objects.nonNull(staleResponse)) {
+            concurrencyLimiter.onError(request.exchange(), originalError, HttpStatus.OK.value());
+            return this.renderStale(staleResponse, routeId, originalError, requestStart);
+        }
+        RouteErrorPolicy policy = routeErrorPolicyRegistry.get(routeId);
+        //配置了快速失败的路由不调用异常处理方法，直接写出策略的响应
+        if (Objects.nonNull(policy) && policy.isFailFast()) {
+            int status = policy.status(HttpStatus.OK.value());
+            concurrencyLimiter.onError(request.exchange(), originalError, status);
+            return this.render(status, policy.body(null), routeId, originalError, null, requestStart);
+        }
+        long resolveStart = System.nanoTime();
+        Throwable throwable = handlerCore.unwrap(originalError);
+        ExceptionHandlerCore.Node handlerNode = handlerCore.resolveHandler(throwable);
+        long resolved = System.nanoTime();
+        errorMetrics.recordResolve(throwable.getClass(), resolved - resolveStart);
+        //耗时的处理方法不在IO线程上执行
+        if (handlerNode.isOffloaded()) {
+            return handlerCore.invokeOffloaded(handlerNode, throwable, request)
+                    .flatMap(handledError -> {
+                        errorMetrics.recordInvoke(handlerNode.method, System.nanoTime() - resolved);
+                        return this.renderHandled(request, routeId, policy, throwable, handledError, requestStart);
+                    });
+        }
+        HandledError handledError = handlerCore.invokeHandler(handlerNode, throwable, request);
+        errorMetrics.recordInvoke(handlerNode.method, System.nanoTime() - resolved);
+        return this.renderHandled(request, routeId, policy, throwable, handledError, requestStart);
+    }
+
+    private Mono<ServerResponse> renderHandled(ServerRequest request, String routeId, RouteErrorPolicy policy, Throwable throwable, HandledError handledError, long requestStart) {
+        Method handler = handledError.getHandler();
+        int status = Objects.nonNull(policy) ? policy.status(handledError.getStatusCode()) : handledError.getStatusCode();
+        //上游失败反馈给并发限制，用于收缩并发上限
+        concurrencyLimiter.onError(request.exchange(), throwable, status);
+        Object result = handledError.getResult();
+        //处理方法返回Mono/Publisher时，等待其结果后再写出，不阻塞当前线程
+        if (result instanceof Publisher) {
+            return Mono.from((Publisher<?>) result)
+                    .flatMap(value -> this.render(status, applyPolicy(policy, value), routeId, throwable, handler, requestStart))
+                    .switchIfEmpty(Mono.defer(() -> this.render(status, applyPolicy(policy, null), routeId, throwable, handler, requestStart)));
+        }
+        return this.render(status, applyPolicy(policy, result), routeId, throwable, handler, requestStart);
+    }
+
+    private static Object applyPolicy(RouteErrorPolicy policy, Object result) {
+        return Objects.nonNull(policy) ? policy.body(result) : result;
+    }
+
+    private Mono<ServerResponse> render(int status, Object result, String routeId, Throwable throwable, Method handler, long requestStart) {
+        String code = result instanceof ResultVO ? ((ResultVO<?>) result).getCode() : null;
+        errorMetrics.countError(routeId, throwable.getClass(), handler, code);
+        long latency = System.nanoTime() - requestStart;
+        errorEventRecorder.record(routeId, throwable.getClass(), code, status, latency);
+        errorHotspots.record(routeId, throwable.getClass(), latency);
+        ServerResponse.BodyBuilder responseBuilder = ServerResponse
+                .status(status)
+                .contentType(MediaType.APPLICATION_JSON_UTF8);
+        if (Objects.isNull(result)) {
+            return responseBuilder.build();
+        }
+        //常量返回值直接写出缓存的响应体，不再序列化
+        ErrorBodyCache.CachedBody cachedBody = errorBodyCache.get(result);
+        if (Objects.nonNull(cachedBody)) {
+            return responseBuilder
+                    .contentLength(cachedBody.length())
+                    .body(this.timed(cachedBody.inserter(), code));
+        }
+        return responseBuilder.body(this.timed(BodyInserters.fromObject(result), code));
+    }
+
+    private Mono<ServerResponse> renderStale(StaleResponseCache.CachedResponse staleResponse, String routeId, Throwable throwable, long requestStart) {
+        errorMetrics.countError(routeId, throwable.getClass(), null, STALE_CODE);
+        long latency = System.nanoTime() - requestStart;
+        errorEventRecorder.record(routeId, throwable.getClass(), STALE_CODE, HttpStatus.OK.value(), latency);
+        errorHotspots.record(routeId, throwable.getClass(), latency);
+        ServerResponse.BodyBuilder responseBuilder = ServerResponse.ok()
+                .header(HttpHeaders.WARNING, StaleResponseCache.STALE_WARNING)
+                .contentLength(staleResponse.length());
+        if (Objects.nonNull(staleResponse.contentType())) {
+            responseBuilder.contentType(staleResponse.contentType());
+        }
+        return responseBuilder.body(this.timed(staleResponse.inserter(), STALE_CODE));
+    }
+
+    /**
+     * 记录写出响应体的耗时
+     */
+    private <T> BodyInserter<T, ? super ServerHttpResponse> timed(BodyInserter<T, ? super ServerHttpResponse> inserter, String code) {
+        return (outputMessage, context) -> {
+            long start = System.nanoTime();
+            return inserter.insert(outputMessage, context)
+                    .doFinally(signal -> errorMetrics.recordSerialize(code, System.nanoTime() - start));
+        };
+    }
+
+    private static String routeId(ServerRequest request) {
+        Route route = request.exchange().getAttribute(GATEWAY_ROUTE_ATTR);
+        return Objects.nonNull(route) ? route.getId() : null;
+    }
+
+    /**
+     * 只有通过{@link #getErrorAttributes}获取错误属性的调用方会使用，渲染响应时直接使用{@link HandledError#getStatusCode()}
+     */
+    @Override
+    protected int getHttpStatus(Map<String, Object> errorAttributes) {
+        HttpStatus status = (HttpStatus) errorAttributes.get("status");
+        if (Objects.isNull(status)) {
+            return HttpStatus.OK.value();
+        }
+        return status.value();
+    }
+}
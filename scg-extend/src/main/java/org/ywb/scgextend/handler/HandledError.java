@@ -0,0 +1,63 @@
+package org.ywb.scgextend.handler;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 异常处理方法的执行结果
+ * <p>
+ * 不可变对象，从{@link ExceptionHandlerCore}直接交给{@link GlobalExceptionHandler}渲染，
+ * 不再经过map和强制类型转换。处理方法返回常量{@link org.ywb.scgextend.common.ResultVO}时，
+ * 同一个处理方法复用同一个实例。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Getter
+public final class HandledError {
+
+    /**
+     * 处理方法上{@link org.springframework.web.bind.annotation.ResponseStatus}指定的状态码，没有时为null
+     */
+    private final HttpStatus status;
+
+    /**
+     * 响应的http状态码，没有指定时为200
+     */
+    private final int statusCode;
+
+    /**
+     * 处理方法的返回值
+     */
+    private final Object result;
+
+    /**
+     * 处理异常的方法
+     */
+    private final Method handler;
+
+    HandledError(HttpStatus status, Object result, Method handler) {
+        this.status = status;
+        this.statusCode = Objects.nonNull(status) ? status.value() : HttpStatus.OK.value();
+        this.result = result;
+        this.handler = handler;
+    }
+
+    /**
+     * 转换成{@link org.springframework.boot.web.reactive.error.ErrorAttributes}形式的map
+     * 只用于需要错误属性的调用方，渲染响应时不会调用
+     *
+     * @return 包含status、result的map
+     */
+    public Map<String, Object> toAttributes() {
+        Map<String, Object> attributes = new HashMap<>(4);
+        attributes.put("status", status);
+        attributes.put("result", result);
+        return attributes;
+    }
+}
@@ -0,0 +1,120 @@
+package org.ywb.scgextend.handler;
+
+import com.google.common.base.Throwables;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.ywb.scgextend.annotation.RootCause;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * 异常处理方法的参数解析
+ * 注册时根据参数类型为每个参数确定一种解析方式，调用时只需要按顺序取值，不再做任何注解、类型判断。
+ * 通过{@link ExceptionHandlerCore#handlerException(Throwable)}调用、没有请求上下文时，请求相关的参数为null。
+ *
+ * @author yuwenbo
+ */
+enum HandlerArgumentResolver {
+
+    /**
+     * 被处理的异常
+     */
+    EXCEPTION {
+        @Override
+        Object resolve(Throwable throwable, ServerRequest request) {
+            return throwable;
+        }
+    },
+    /**
+     * 异常链最底层的原因，参数需要标注{@link RootCause}
+     */
+    ROOT_CAUSE {
+        @Override
+        Object resolve(Throwable throwable, ServerRequest request) {
+            return Throwables.getRootCause(throwable);
+        }
+    },
+    SERVER_REQUEST {
+        @Override
+        Object resolve(Throwable throwable, ServerRequest request) {
+            return request;
+        }
+    },
+    EXCHANGE {
+        @Override
+        Object resolve(Throwable throwable, ServerRequest request) {
+            return request != null ? request.exchange() : null;
+        }
+    },
+    HTTP_REQUEST {
+        @Override
+        Object resolve(Throwable throwable, ServerRequest request) {
+            return request != null ? request.exchange().getRequest() : null;
+        }
+    },
+    HEADERS {
+        @Override
+        Object resolve(Throwable throwable, ServerRequest request) {
+            return request != null ? request.exchange().getRequest().getHeaders() : null;
+        }
+    },
+    /**
+     * 当前请求匹配到的路由，没有匹配到路由时为null
+     */
+    ROUTE {
+        @Override
+        Object resolve(Throwable throwable, ServerRequest request) {
+            return request != null ? request.exchange().getAttribute(GATEWAY_ROUTE_ATTR) : null;
+        }
+    };
+
+    abstract Object resolve(Throwable throwable, ServerRequest request);
+
+    /**
+     * 确定参数的解析方式
+     *
+     * @param method    异常处理方法
+     * @param parameter 参数
+     * @return 解析方式
+     * @throws IllegalStateException 不支持的参数类型
+     */
+    static HandlerArgumentResolver of(Method method, Parameter parameter) {
+        Class<?> type = parameter.getType();
+        if (Throwable.class.isAssignableFrom(type)) {
+            return parameter.isAnnotationPresent(RootCause.class) ? ROOT_CAUSE : EXCEPTION;
+        }
+        if (ServerRequest.class == type) {
+            return SERVER_REQUEST;
+        }
+        if (ServerWebExchange.class == type) {
+            return EXCHANGE;
+        }
+        if (ServerHttpRequest.class == type) {
+            return HTTP_REQUEST;
+        }
+        if (HttpHeaders.class == type) {
+            return HEADERS;
+        }
+        if (Route.class == type) {
+            return ROUTE;
+        }
+        // 异常实现的接口，只能用于由参数推断处理类型的方法，否则无法保证传入的异常实现了该接口
+        if (type.isInterface() && isInferred(method)) {
+            return EXCEPTION;
+        }
+        throw new IllegalStateException("异常处理方法不支持的参数类型：" + type.getName() + "，方法：" + method);
+    }
+
+    private static boolean isInferred(Method method) {
+        ExceptionHandler exceptionHandler = AnnotatedElementUtils.findMergedAnnotation(method, ExceptionHandler.class);
+        return exceptionHandler != null && exceptionHandler.value().length == 0;
+    }
+}
@@ -0,0 +1,203 @@
+package org.ywb.scgextend.handler;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.util.MimeType;
+import org.ywb.scgextend.common.ResultVO;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ResultVO}专用的JSON编码器
+ * <p>
+ * 通用的Jackson编码器每次都要查找序列化器、逐个属性通过反射取值；
+ * 该编码器在创建时从Jackson取出ResultVO的属性顺序、预编码的属性名以及是否忽略null，
+ * 写出时直接向{@link DataBufferFactory}分配的buffer(netty下为池化的ByteBuf)写入code、message，
+ * 只有data交给Jackson序列化。输出与Jackson序列化ResultVO的结果一致。
+ * ResultVO的属性被mixin等方式修改、无法识别时，退化为整个对象交给Jackson。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+public class ResultVOEncoder extends AbstractEncoder<ResultVO<?>> implements HttpMessageEncoder<ResultVO<?>> {
+
+    private static final String CODE = "code";
+
+    private static final String MESSAGE = "message";
+
+    private static final String DATA = "data";
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 按Jackson的顺序排列的属性，无法识别时为null
+     */
+    private final Property[] properties;
+
+    public ResultVOEncoder(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.objectMapper = objectMapper;
+        this.properties = introspect(objectMapper);
+    }
+
+    private static Property[] introspect(ObjectMapper objectMapper) {
+        // 只支持总是输出和忽略null两种方式，其他方式(如NON_EMPTY)交给Jackson
+        JsonInclude.Include inclusion = objectMapper.getSerializationConfig()
+                .getDefaultPropertyInclusion(ResultVO.class)
+                .getValueInclusion();
+        if (inclusion != JsonInclude.Include.ALWAYS && inclusion != JsonInclude.Include.NON_NULL && inclusion != JsonInclude.Include.USE_DEFAULTS) {
+            return null;
+        }
+        List<Property> properties = new ArrayList<>(3);
+        try {
+            Iterator<PropertyWriter> writers = objectMapper.getSerializerProviderInstance()
+                    .findValueSerializer(ResultVO.class)
+                    .properties();
+            while (writers.hasNext()) {
+                PropertyWriter writer = writers.next();
+                if (!(writer instanceof BeanPropertyWriter)) {
+                    return null;
+                }
+                BeanPropertyWriter beanWriter = (BeanPropertyWriter) writer;
+                String property = propertyOf(beanWriter.getMember().getName());
+                if (property == null) {
+                    return null;
+                }
+                properties.add(new Property(property, beanWriter.getSerializedName(), beanWriter.willSuppressNulls()));
+            }
+        } catch (JsonMappingException e) {
+            return null;
+        }
+        return properties.toArray(new Property[0]);
+    }
+
+    /**
+     * 根据字段名或getter方法名确定是哪个属性
+     */
+    private static String propertyOf(String memberName) {
+        switch (memberName) {
+            case CODE:
+            case "getCode":
+                return CODE;
+            case MESSAGE:
+            case "getMessage":
+                return MESSAGE;
+            case DATA:
+            case "getData":
+                return DATA;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return ResultVO.class.isAssignableFrom(elementType.toClass()) && super.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends ResultVO<?>> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        return Flux.from(inputStream).map(value -> this.encodeValue(value, bufferFactory, elementType, mimeType, hints));
+    }
+
+    @Override
+    public DataBuffer encodeValue(ResultVO<?> value, DataBufferFactory bufferFactory,
+                                  ResolvableType valueType, MimeType mimeType, Map<String, Object> hints) {
+        DataBuffer buffer = bufferFactory.allocateBuffer();
+        boolean release = true;
+        try (JsonGenerator generator = objectMapper.createGenerator(buffer.asOutputStream(), JsonEncoding.UTF8)) {
+            if (properties == null) {
+                objectMapper.writeValue(generator, value);
+            } else {
+                this.write(generator, value);
+            }
+            release = false;
+        } catch (IOException e) {
+            throw new EncodingException("ResultVO序列化失败：" + value, e);
+        } finally {
+            if (release) {
+                DataBufferUtils.release(buffer);
+            }
+        }
+        return buffer;
+    }
+
+    private void write(JsonGenerator generator, ResultVO<?> value) throws IOException {
+        generator.writeStartObject();
+        for (Property property : properties) {
+            switch (property.name) {
+                case CODE:
+                    writeString(generator, property, value.getCode());
+                    break;
+                case MESSAGE:
+                    writeString(generator, property, value.getMessage());
+                    break;
+                default:
+                    Object data = value.getData();
+                    if (data == null) {
+                        if (!property.suppressNulls) {
+                            generator.writeFieldName(property.serializedName);
+                            generator.writeNull();
+                        }
+                    } else {
+                        generator.writeFieldName(property.serializedName);
+                        objectMapper.writeValue(generator, data);
+                    }
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator generator, Property property, String value) throws IOException {
+        if (value == null && property.suppressNulls) {
+            return;
+        }
+        generator.writeFieldName(property.serializedName);
+        generator.writeString(value);
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return Collections.emptyList();
+    }
+
+    private static final class Property {
+
+        final String name;
+
+        /**
+         * Jackson预编码好的属性名
+         */
+        final SerializableString serializedName;
+
+        final boolean suppressNulls;
+
+        Property(String name, SerializableString serializedName, boolean suppressNulls) {
+            this.name = name;
+            this.serializedName = serializedName;
+            this.suppressNulls = suppressNulls;
+        }
+    }
+}
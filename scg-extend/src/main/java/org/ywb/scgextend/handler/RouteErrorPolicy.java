@@ -0,0 +1,125 @@
+package org.ywb.scgextend.handler;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.ywb.scgextend.common.IResultCode;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.common.ResultVO;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * 路由级别的异常响应策略
+ * <p>
+ * 配置在路由的metadata中，路由刷新时编译成该对象，处理异常时不再解析配置：
+ * <pre>
+ * spring:
+ *   cloud:
+ *     gateway:
+ *       routes:
+ *         - id: user
+ *           metadata:
+ *             error-policy:
+ *               status: 503          # 该路由所有异常的http状态码
+ *               code: "9999"         # 使用该ResultCode替换处理方法返回的ResultVO
+ *               message: 用户服务不可用 # 不配置时使用ResultCode的描述
+ *               fail-fast: true      # 不调用异常处理方法，直接写出缓存的响应体，没有配置code时使用SERVICE_EXCEPTION
+ * </pre>
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Slf4j
+@Getter
+public final class RouteErrorPolicy {
+
+    public static final String METADATA_KEY = "error-policy";
+
+    /**
+     * http状态码，为null时使用处理方法的状态码
+     */
+    private final HttpStatus status;
+
+    /**
+     * 响应体，为null时使用处理方法的返回值；fail-fast时一定不为null
+     */
+    private final ResultVO<?> body;
+
+    /**
+     * 是否跳过异常处理方法
+     */
+    private final boolean failFast;
+
+    private RouteErrorPolicy(HttpStatus status, ResultVO<?> body, boolean failFast) {
+        this.status = status;
+        this.body = body;
+        this.failFast = failFast;
+    }
+
+    /**
+     * 编译路由metadata中的异常策略
+     *
+     * @param routeId   路由id
+     * @param metadata  路由metadata
+     * @param constants 按(code, message)获取常量VO，相同内容的常量在多次编译间复用，
+     *                  避免每次路由刷新都在{@link ErrorBodyCache}中缓存新的响应体
+     * @return 没有配置或配置不合法时返回null
+     */
+    static RouteErrorPolicy compile(String routeId, Map<String, Object> metadata, BiFunction<String, String, ResultVO<?>> constants) {
+        Object config = metadata.get(METADATA_KEY);
+        if (!(config instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> policy = (Map<?, ?>) config;
+        HttpStatus status = null;
+        Object statusValue = policy.get("status");
+        if (Objects.nonNull(statusValue)) {
+            String statusCode = statusValue.toString();
+            status = statusCode.matches("\\d{3}") ? HttpStatus.resolve(Integer.parseInt(statusCode)) : null;
+            if (Objects.isNull(status)) {
+                log.error("路由[{}]的异常策略status不合法：{}，忽略该策略", routeId, statusValue);
+                return null;
+            }
+        }
+        ResultVO<?> body = null;
+        Object code = policy.get("code");
+        if (Objects.nonNull(code)) {
+            IResultCode resultCode = ResultCode.lookup(code.toString());
+            Object message = policy.get("message");
+            if (Objects.nonNull(message)) {
+                body = constants.apply(code.toString(), message.toString());
+            } else if (Objects.nonNull(resultCode)) {
+                body = constants.apply(resultCode.getCode(), resultCode.getMessage());
+            } else {
+                log.error("路由[{}]的异常策略code未定义且没有配置message：{}，忽略该策略", routeId, code);
+                return null;
+            }
+        }
+        boolean failFast = Boolean.parseBoolean(String.valueOf(policy.get("fail-fast")));
+        if (Objects.isNull(status) && Objects.isNull(body)) {
+            return null;
+        }
+        if (failFast && Objects.isNull(body)) {
+            // 不调用处理方法时没有返回值可用，必须有固定的响应体
+            body = constants.apply(ResultCode.SERVICE_EXCEPTION.getCode(), ResultCode.SERVICE_EXCEPTION.getMessage());
+        }
+        return new RouteErrorPolicy(status, body, failFast);
+    }
+
+    /**
+     * 按策略确定http状态码
+     */
+    int status(int handlerStatus) {
+        return Objects.nonNull(status) ? status.value() : handlerStatus;
+    }
+
+    /**
+     * 按策略确定响应体，处理方法没有返回ResultVO时保留原返回值
+     */
+    Object body(Object handlerResult) {
+        return Objects.nonNull(body) && (handlerResult == null || handlerResult instanceof ResultVO) ? body : handlerResult;
+    }
+}
@@ -0,0 +1,75 @@
+package org.ywb.scgextend.handler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.ywb.scgextend.common.ResultVO;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * 路由异常策略表
+ * <p>
+ * 每次路由刷新完成后重新编译所有路由的{@link RouteErrorPolicy}，整体替换策略表；
+ * 处理异常时按路由id一次map查找。
+ * 策略中的常量响应体按(code, message)复用上一次编译的对象，
+ * 路由频繁刷新(如服务发现)时{@link ErrorBodyCache}中的缓存不会随刷新次数增长。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Slf4j
+@Component
+public class RouteErrorPolicyRegistry implements ApplicationListener<RefreshRoutesResultEvent> {
+
+    private volatile Map<String, RouteErrorPolicy> policies = Collections.emptyMap();
+
+    /**
+     * 当前策略使用的常量响应体，key为code和message，每次刷新完成时整体替换
+     */
+    private volatile Map<String, ResultVO<?>> constants = Collections.emptyMap();
+
+    /**
+     * 获取路由的异常策略
+     *
+     * @param routeId 路由id
+     * @return 没有配置时返回null
+     */
+    public RouteErrorPolicy get(String routeId) {
+        return Objects.nonNull(routeId) ? policies.get(routeId) : null;
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (!event.isSuccess() || !(event.getSource() instanceof RouteLocator)) {
+            return;
+        }
+        ((RouteLocator) event.getSource()).getRoutes()
+                .collectList()
+                .subscribe(routes -> {
+                    Map<String, RouteErrorPolicy> compiled = new HashMap<>(routes.size());
+                    Map<String, ResultVO<?>> previous = constants;
+                    Map<String, ResultVO<?>> interned = new HashMap<>(previous.size());
+                    BiFunction<String, String, ResultVO<?>> constant = (code, message) -> interned.computeIfAbsent(code + '\n' + message, key -> {
+                        ResultVO<?> resultVO = previous.get(key);
+                        return Objects.nonNull(resultVO) ? resultVO : ResultVO.constant(code, message);
+                    });
+                    for (Route route : routes) {
+                        RouteErrorPolicy policy = RouteErrorPolicy.compile(route.getId(), route.getMetadata(), constant);
+                        if (Objects.nonNull(policy)) {
+                            compiled.put(route.getId(), policy);
+                        }
+                    }
+                    constants = interned;
+                    policies = compiled;
+                    log.info("路由异常策略刷新完毕，共{}个路由配置了异常策略", compiled.size());
+                }, e -> log.error("路由异常策略刷新失败，继续使用旧的策略", e));
+    }
+}
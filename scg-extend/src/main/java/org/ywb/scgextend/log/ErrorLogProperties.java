@@ -0,0 +1,31 @@
+package org.ywb.scgextend.log;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 异常日志采样配置
+ *
+ * @author yuwenbo
+ */
+@Data
+@ConfigurationProperties(prefix = "scg-extend.error-log")
+public class ErrorLogProperties {
+
+    /**
+     * 采样窗口，同一种异常在一个窗口内只打印一次完整异常栈，窗口结束时输出汇总次数
+     */
+    private Duration window = Duration.ofMinutes(1);
+
+    /**
+     * 待打印异常队列的容量，队列满时直接丢弃并计数
+     */
+    private int queueCapacity = 1024;
+
+    /**
+     * 最多区分多少种异常类型，超出后其余类型共用一个计数
+     */
+    private int maxKeys = 1024;
+}
@@ -0,0 +1,166 @@
+package org.ywb.scgextend.log;
+
+import com.google.common.base.Throwables;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @version v1.0.0
+ * <p>
+ * 异常日志采样
+ * 上游故障时每个请求都会抛出同样的异常，逐条打印完整异常栈会占满CPU和磁盘。
+ * 这里按异常类型去重：
+ * 1.每个采样窗口内第一次出现时打印完整异常栈
+ * 2.之后只计数，窗口结束时输出一条汇总
+ * 只按异常类型、不按抛出位置(栈顶)去重：区分抛出位置需要在调用方获取异常栈，代价和打印异常栈相当。
+ * 同一类型不同位置抛出的异常共用一个计数，汇总中不标注位置，位置以窗口内打印的完整异常栈为准。
+ * 调用方只按异常类型查找一次计数并做一次无阻塞的入队，不获取异常栈、不创建对象；
+ * 获取和格式化异常栈、日志输出都在后台线程完成，不会占用netty的IO线程；队列满时直接丢弃并计入汇总。
+ * 异常类型超过上限后，其余类型共用一个计数，保证内存有界。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(ErrorLogProperties.class)
+public class ErrorLogSampler {
+
+    private final ErrorLogProperties properties;
+
+    private final long windowNanos;
+
+    private final BlockingQueue<Throwable> queue;
+
+    private final Map<Class<?>, Occurrence> occurrences = new ConcurrentHashMap<>(64);
+
+    /**
+     * 异常类型超过上限后共用的计数
+     */
+    private final Occurrence overflow = new Occurrence();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile Thread writer;
+
+    public ErrorLogSampler(ErrorLogProperties properties) {
+        this.properties = properties;
+        this.windowNanos = properties.getWindow().toNanos();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    /**
+     * 记录一次异常，不会阻塞
+     *
+     * @param throwable 异常
+     */
+    public void error(Throwable throwable) {
+        Occurrence occurrence = this.occurrenceOf(throwable.getClass());
+        long window = System.nanoTime() / windowNanos;
+        long loggedWindow = occurrence.loggedWindow.get();
+        if (loggedWindow != window && occurrence.loggedWindow.compareAndSet(loggedWindow, window)) {
+            if (!queue.offer(throwable)) {
+                dropped.increment();
+            }
+            return;
+        }
+        occurrence.suppressed.increment();
+    }
+
+    private Occurrence occurrenceOf(Class<?> type) {
+        Occurrence occurrence = occurrences.get(type);
+        if (occurrence != null) {
+            return occurrence;
+        }
+        if (occurrences.size() >= properties.getMaxKeys()) {
+            return overflow;
+        }
+        return occurrences.computeIfAbsent(type, t -> new Occurrence());
+    }
+
+    @PostConstruct
+    public void start() {
+        Thread thread = new Thread(this::drain, "error-log-sampler");
+        thread.setDaemon(true);
+        thread.start();
+        writer = thread;
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = writer;
+        writer = null;
+        if (Objects.nonNull(thread)) {
+            thread.interrupt();
+        }
+    }
+
+    private void drain() {
+        long nextSummary = System.nanoTime() + windowNanos;
+        while (writer == Thread.currentThread()) {
+            try {
+                Throwable throwable = queue.poll(Math.max(nextSummary - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                if (Objects.nonNull(throwable)) {
+                    log.error(Throwables.getStackTraceAsString(throwable));
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                log.warn("异常日志输出失败", e);
+            }
+            if (System.nanoTime() - nextSummary >= 0) {
+                this.summary();
+                nextSummary = System.nanoTime() + windowNanos;
+            }
+        }
+        this.summary();
+    }
+
+    /**
+     * 输出窗口内被忽略的异常次数，并清理已经不再出现的异常
+     */
+    private void summary() {
+        long windowSeconds = TimeUnit.NANOSECONDS.toSeconds(windowNanos);
+        occurrences.forEach((type, occurrence) -> {
+            long suppressed = occurrence.suppressed.sumThenReset();
+            if (suppressed > 0) {
+                log.error("{}在过去{}秒内又发生了{}次(可能来自不同的抛出位置)，未打印异常栈", type.getName(), windowSeconds, suppressed);
+            } else if (occurrence.loggedWindow.get() != System.nanoTime() / windowNanos) {
+                occurrences.remove(type, occurrence);
+            }
+        });
+        long overflowSuppressed = overflow.suppressed.sumThenReset();
+        if (overflowSuppressed > 0) {
+            log.error("异常类型超过{}种，其他类型在过去{}秒内又发生了{}次，未打印异常栈", properties.getMaxKeys(), windowSeconds, overflowSuppressed);
+        }
+        long droppedCount = dropped.sumThenReset();
+        if (droppedCount > 0) {
+            log.error("异常日志队列已满，过去{}秒内丢弃了{}条异常栈", windowSeconds, droppedCount);
+        }
+    }
+
+    private static final class Occurrence {
+
+        /**
+         * 最近一次打印完整异常栈所在的窗口
+         */
+        final AtomicLong loggedWindow = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * 当前窗口内未打印的次数
+         */
+        final LongAdder suppressed = new LongAdder();
+    }
+}
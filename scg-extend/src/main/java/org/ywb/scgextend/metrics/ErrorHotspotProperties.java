@@ -0,0 +1,37 @@
+package org.ywb.scgextend.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 异常热点统计配置
+ *
+ * @author yuwenbo
+ */
+@Data
+@ConfigurationProperties(prefix = "scg-extend.error-hotspot")
+public class ErrorHotspotProperties {
+
+    /**
+     * 是否开启，默认开启
+     */
+    private boolean enabled = true;
+
+    /**
+     * 路由、异常类型、路由+异常类型各跟踪多少个key，向上取整为2的幂；
+     * 每个key固定占用约2KB(带一个耗时直方图)，总内存约为 capacity * 3 * 2(窗口) * 2KB
+     */
+    private int capacity = 64;
+
+    /**
+     * 统计窗口，端点返回最近1~2个窗口内的数据
+     */
+    private Duration window = Duration.ofMinutes(1);
+
+    /**
+     * 端点默认返回的热点数量
+     */
+    private int topN = 10;
+}
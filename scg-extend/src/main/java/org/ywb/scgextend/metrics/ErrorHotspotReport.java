@@ -0,0 +1,95 @@
+package org.ywb.scgextend.metrics;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 异常热点，errorhotspots端点的返回值
+ * 耗时为请求从进入网关到写出异常响应前的耗时(见{@link org.ywb.scgextend.filter.RequestStartWebFilter})，单位毫秒
+ *
+ * @author yuwenbo
+ */
+@Data
+public class ErrorHotspotReport {
+
+    private boolean enabled;
+
+    private long windowSeconds;
+
+    /**
+     * 所有异常请求的耗时
+     */
+    private Latency total;
+
+    /**
+     * 异常最多的路由，没有匹配到路由时为none
+     */
+    private List<Offender> routes;
+
+    /**
+     * 出现最多的异常类型
+     */
+    private List<Offender> exceptions;
+
+    /**
+     * 出现最多的 路由+异常类型
+     */
+    private List<Offender> routeExceptions;
+
+    /**
+     * 并发替换冲突而没有计入热点统计的次数，正常为0
+     */
+    private long dropped;
+
+    @Data
+    public static class Offender {
+
+        private String route;
+
+        private String exception;
+
+        /**
+         * 次数，真实次数在 count-error 到 count 之间
+         */
+        private long count;
+
+        private long error;
+
+        private Latency latency;
+    }
+
+    @Data
+    public static class Latency {
+
+        private long count;
+
+        private double mean;
+
+        private double p50;
+
+        private double p90;
+
+        private double p99;
+
+        private double p999;
+
+        private double max;
+
+        static Latency of(LogLinearHistogram.Snapshot snapshot) {
+            Latency latency = new Latency();
+            latency.count = snapshot.count();
+            latency.mean = toMillis(snapshot.meanMicros());
+            latency.p50 = toMillis(snapshot.quantileMicros(0.5));
+            latency.p90 = toMillis(snapshot.quantileMicros(0.9));
+            latency.p99 = toMillis(snapshot.quantileMicros(0.99));
+            latency.p999 = toMillis(snapshot.quantileMicros(0.999));
+            latency.max = toMillis(snapshot.maxMicros());
+            return latency;
+        }
+
+        private static double toMillis(double micros) {
+            return micros / 1000;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.ywb.scgextend.metrics;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @version v1.0.0
+ * <p>
+ * 异常热点统计：当前哪些路由、哪些异常类型最多，以及这些请求的耗时分布(从进入网关到写出异常响应)
+ * {@link ErrorMetrics}按 路由+异常类型+状态码 注册meter，适合长期趋势；
+ * 这里只保留最近的窗口，每个维度用固定容量的{@link HeavyHitters}统计次数最多的key，
+ * 每个key带一个{@link LogLinearHistogram}，无论出现多少种路由和异常类型，占用的内存都是固定的。
+ * 两个窗口轮换使用，端点返回最近1~2个窗口合并后的结果，见{@link ErrorHotspotsEndpoint}。
+ * 记录时不加锁，命中已跟踪的key时不创建对象。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Component
+@EnableConfigurationProperties(ErrorHotspotProperties.class)
+public class ErrorHotspots {
+
+    private final ErrorHotspotProperties properties;
+
+    private final long windowNanos;
+
+    /**
+     * 未开启时为null
+     */
+    private final Window[] windows;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    private volatile int current;
+
+    public ErrorHotspots(ErrorHotspotProperties properties) {
+        if (properties.isEnabled() && (properties.getWindow().isZero() || properties.getWindow().isNegative())) {
+            throw new IllegalArgumentException("scg-extend.error-hotspot.window必须大于0");
+        }
+        this.properties = properties;
+        this.windowNanos = properties.getWindow().toNanos();
+        this.windows = properties.isEnabled()
+                ? new Window[]{new Window(properties.getCapacity()), new Window(properties.getCapacity())}
+                : null;
+    }
+
+    /**
+     * 记录一次处理的异常
+     *
+     * @param routeId       路由id，没有匹配到路由时为null
+     * @param exceptionType 异常类型
+     * @param latencyNanos  请求耗时
+     */
+    public void record(String routeId, Class<?> exceptionType, long latencyNanos) {
+        if (windows == null) {
+            return;
+        }
+        Window window = this.advance(System.nanoTime());
+        String route = routeId != null ? routeId : ErrorMetrics.NONE;
+        window.total.record(latencyNanos);
+        window.routes.record(route, null, latencyNanos);
+        window.exceptions.record(exceptionType, null, latencyNanos);
+        window.routeExceptions.record(route, exceptionType, latencyNanos);
+    }
+
+    /**
+     * 当前窗口到期时切换到另一个窗口并清空它，超过两个窗口没有异常时两个窗口都清空
+     *
+     * @return 当前窗口
+     */
+    private Window advance(long now) {
+        long start = windowStart.get();
+        long elapsed = now - start;
+        if (elapsed >= windowNanos && windowStart.compareAndSet(start, now)) {
+            int previous = current;
+            if (elapsed >= 2 * windowNanos) {
+                windows[previous].reset();
+            }
+            windows[previous ^ 1].reset();
+            current = previous ^ 1;
+        }
+        return windows[current];
+    }
+
+    /**
+     * 最近1~2个窗口的热点
+     *
+     * @param topN 每个维度返回的数量
+     * @return 热点
+     */
+    public ErrorHotspotReport report(int topN) {
+        ErrorHotspotReport report = new ErrorHotspotReport();
+        report.setEnabled(windows != null);
+        report.setWindowSeconds(properties.getWindow().getSeconds());
+        if (windows == null) {
+            return report;
+        }
+        this.advance(System.nanoTime());
+        Window latest = windows[current];
+        Window previous = windows[current ^ 1];
+        LogLinearHistogram.Snapshot total = new LogLinearHistogram.Snapshot();
+        latest.total.addTo(total);
+        previous.total.addTo(total);
+        report.setTotal(ErrorHotspotReport.Latency.of(total));
+        report.setRoutes(top(latest.routes, previous.routes, topN));
+        report.setExceptions(top(latest.exceptions, previous.exceptions, topN));
+        report.setRouteExceptions(top(latest.routeExceptions, previous.routeExceptions, topN));
+        report.setDropped(latest.dropped() + previous.dropped());
+        return report;
+    }
+
+    public int defaultTopN() {
+        return properties.getTopN();
+    }
+
+    /**
+     * 合并两个窗口中相同的key，按次数取前topN个
+     */
+    private static List<ErrorHotspotReport.Offender> top(HeavyHitters latest, HeavyHitters previous, int topN) {
+        Map<List<Object>, Merged> merged = new HashMap<>(latest.capacity() * 2);
+        for (HeavyHitters heavyHitters : Arrays.asList(latest, previous)) {
+            for (HeavyHitters.Entry entry : heavyHitters.entries()) {
+                merged.computeIfAbsent(Arrays.asList(entry.getFirst(), entry.getSecond()), key -> new Merged(entry)).add(entry);
+            }
+        }
+        List<Merged> sorted = new ArrayList<>(merged.values());
+        sorted.sort(Comparator.comparingLong((Merged m) -> m.count).reversed());
+        List<ErrorHotspotReport.Offender> offenders = new ArrayList<>(Math.min(topN, sorted.size()));
+        for (Merged m : sorted.subList(0, Math.min(topN, sorted.size()))) {
+            offenders.add(m.toOffender());
+        }
+        return offenders;
+    }
+
+    private static String nameOf(Object key) {
+        if (key == null) {
+            return null;
+        }
+        return key instanceof Class ? ((Class<?>) key).getName() : key.toString();
+    }
+
+    /**
+     * 一个统计窗口
+     */
+    private static final class Window {
+
+        final LogLinearHistogram total = new LogLinearHistogram();
+
+        final HeavyHitters routes;
+
+        final HeavyHitters exceptions;
+
+        final HeavyHitters routeExceptions;
+
+        Window(int capacity) {
+            this.routes = new HeavyHitters(capacity);
+            this.exceptions = new HeavyHitters(capacity);
+            this.routeExceptions = new HeavyHitters(capacity);
+        }
+
+        long dropped() {
+            return routes.dropped() + exceptions.dropped() + routeExceptions.dropped();
+        }
+
+        void reset() {
+            total.reset();
+            routes.reset();
+            exceptions.reset();
+            routeExceptions.reset();
+        }
+    }
+
+    private static final class Merged {
+
+        final Object first;
+
+        final Object second;
+
+        final List<LogLinearHistogram> histograms = new ArrayList<>(2);
+
+        long count;
+
+        long error;
+
+        Merged(HeavyHitters.Entry entry) {
+            this.first = entry.getFirst();
+            this.second = entry.getSecond();
+        }
+
+        void add(HeavyHitters.Entry entry) {
+            count += entry.getCount();
+            error += entry.getError();
+            histograms.add(entry.getHistogram());
+        }
+
+        ErrorHotspotReport.Offender toOffender() {
+            ErrorHotspotReport.Offender offender = new ErrorHotspotReport.Offender();
+            // 路由是String，异常类型是Class；路由+异常类型时两部分都有
+            if (first instanceof Class) {
+                offender.setException(nameOf(first));
+            } else {
+                offender.setRoute(nameOf(first));
+                offender.setException(nameOf(second));
+            }
+            offender.setCount(count);
+            offender.setError(error);
+            LogLinearHistogram.Snapshot latency = new LogLinearHistogram.Snapshot();
+            histograms.forEach(histogram -> histogram.addTo(latency));
+            offender.setLatency(ErrorHotspotReport.Latency.of(latency));
+            return offender;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.ywb.scgextend.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * 异常热点端点：GET /actuator/errorhotspots?top=10
+ * 返回最近1~2个统计窗口内异常最多的路由、异常类型、路由+异常类型，以及对应的请求耗时分位数，
+ * 需要在management.endpoints.web.exposure.include中加入errorhotspots
+ *
+ * @author yuwenbo
+ */
+@Component
+@Endpoint(id = "errorhotspots")
+public class ErrorHotspotsEndpoint {
+
+    private final ErrorHotspots errorHotspots;
+
+    public ErrorHotspotsEndpoint(ErrorHotspots errorHotspots) {
+        this.errorHotspots = errorHotspots;
+    }
+
+    @ReadOperation
+    public ErrorHotspotReport hotspots(@Nullable Integer top) {
+        return errorHotspots.report(top != null && top > 0 ? top : errorHotspots.defaultTopN());
+    }
+}
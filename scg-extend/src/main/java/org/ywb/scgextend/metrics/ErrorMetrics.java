@@ -0,0 +1,145 @@
+package org.ywb.scgextend.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version v1.0.0
+ * <p>
+ * 异常处理流程的监控指标
+ * scg.gateway.errors                 处理的异常次数，tag：route/exception/handler/code
+ * scg.gateway.error.resolve          查找处理方法的耗时，tag：exception
+ * scg.gateway.error.invoke           调用处理方法的耗时，tag：handler
+ * scg.gateway.error.serialize        写出响应体的耗时，tag：code
+ * handler为 类名#方法名(参数类型)，区分同名的重载方法；没有调用处理方法(如fail-fast、返回旧响应)时为none。
+ * 所有meter按全部tag值缓存在嵌套的map中，只在第一次出现时注册，之后查找不产生对象。
+ * 同一种异常重新注册后可能由不同的处理方法处理，所以errors也按handler区分缓存。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Component
+public class ErrorMetrics {
+
+    /**
+     * 没有对应值时使用的tag
+     */
+    public static final String NONE = "none";
+
+    /**
+     * 没有处理方法时在缓存中使用的key，ConcurrentHashMap不允许null
+     */
+    private static final Object NO_HANDLER = new Object();
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Map<Class<?>, Map<Object, Map<String, Counter>>>> errorCounters = new ConcurrentHashMap<>(16);
+
+    private final Map<Class<?>, Timer> resolveTimers = new ConcurrentHashMap<>(16);
+
+    private final Map<Method, Timer> invokeTimers = new ConcurrentHashMap<>(16);
+
+    private final Map<String, Timer> serializeTimers = new ConcurrentHashMap<>(16);
+
+    public ErrorMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void recordResolve(Class<?> exceptionType, long nanos) {
+        Timer timer = resolveTimers.get(exceptionType);
+        if (timer == null) {
+            timer = resolveTimers.computeIfAbsent(exceptionType, type -> Timer.builder("scg.gateway.error.resolve")
+                    .description("查找异常处理方法的耗时")
+                    .tag("exception", type.getName())
+                    .register(meterRegistry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordInvoke(Method handler, long nanos) {
+        Timer timer = invokeTimers.get(handler);
+        if (timer == null) {
+            timer = invokeTimers.computeIfAbsent(handler, method -> Timer.builder("scg.gateway.error.invoke")
+                    .description("调用异常处理方法的耗时")
+                    .tag("handler", handlerName(method))
+                    .register(meterRegistry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSerialize(String code, long nanos) {
+        String codeTag = nullToNone(code);
+        Timer timer = serializeTimers.get(codeTag);
+        if (timer == null) {
+            timer = serializeTimers.computeIfAbsent(codeTag, c -> Timer.builder("scg.gateway.error.serialize")
+                    .description("写出异常响应体的耗时")
+                    .tag("code", c)
+                    .register(meterRegistry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次处理的异常
+     *
+     * @param routeId       路由id，没有匹配到路由时为null
+     * @param exceptionType 异常类型
+     * @param handler       处理方法，没有调用处理方法时为null
+     * @param code          返回的状态码
+     */
+    public void countError(String routeId, Class<?> exceptionType, Method handler, String code) {
+        String routeTag = nullToNone(routeId);
+        String codeTag = nullToNone(code);
+        Object handlerKey = handler != null ? handler : NO_HANDLER;
+        Map<Class<?>, Map<Object, Map<String, Counter>>> routeCounters = errorCounters.get(routeTag);
+        if (routeCounters == null) {
+            routeCounters = errorCounters.computeIfAbsent(routeTag, r -> new ConcurrentHashMap<>(16));
+        }
+        Map<Object, Map<String, Counter>> exceptionCounters = routeCounters.get(exceptionType);
+        if (exceptionCounters == null) {
+            exceptionCounters = routeCounters.computeIfAbsent(exceptionType, t -> new ConcurrentHashMap<>(2));
+        }
+        Map<String, Counter> counters = exceptionCounters.get(handlerKey);
+        if (counters == null) {
+            counters = exceptionCounters.computeIfAbsent(handlerKey, h -> new ConcurrentHashMap<>(4));
+        }
+        Counter counter = counters.get(codeTag);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(codeTag, c -> Counter.builder("scg.gateway.errors")
+                    .description("处理的异常次数")
+                    .tag("route", routeTag)
+                    .tag("exception", exceptionType.getName())
+                    .tag("handler", handlerName(handler))
+                    .tag("code", c)
+                    .register(meterRegistry));
+        }
+        counter.increment();
+    }
+
+    /**
+     * 类名#方法名(参数类型)，处理方法通常是同名的重载方法，只用方法名无法区分
+     */
+    static String handlerName(Method method) {
+        if (Objects.isNull(method)) {
+            return NONE;
+        }
+        StringJoiner name = new StringJoiner(",", method.getDeclaringClass().getSimpleName() + "#" + method.getName() + "(", ")");
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            name.add(parameterType.getSimpleName());
+        }
+        return name.toString();
+    }
+
+    private static String nullToNone(String value) {
+        return value != null ? value : NONE;
+    }
+}
@@ -0,0 +1,204 @@
+package org.ywb.scgextend.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * 固定容量的space-saving高频项统计，key由两部分组成(如 路由+异常类型)，每个key带一个耗时直方图
+ * <p>
+ * 槽位在创建时全部分配好，按key的hash分成{@link #WAYS}路组相联的组，只在组内查找和替换：
+ * 命中时计数加一；未命中时替换组内计数最小的槽位，新key的计数从被替换的计数加一开始，
+ * 被替换的计数记为误差，真实次数在 count-error 到 count 之间。
+ * 次数超过所在组总次数1/{@link #WAYS}的key一定会被保留，所以次数最多的key不会被大量偶发的key挤掉。
+ * 不加锁：替换槽位时通过CAS修改key，并发替换同一个槽位时只有一个成功，其余线程重新查找；
+ * 替换的瞬间并发记录的次数可能计入新key，对高频项的影响可以忽略。
+ * 新key进入时创建一个很小的key对象，之后记录不创建对象；无论出现多少种key，内存都不会增长。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+final class HeavyHitters {
+
+    static final int WAYS = 8;
+
+    private static final int MAX_RETRIES = 2;
+
+    private final Slot[] slots;
+
+    private final int setMask;
+
+    /**
+     * 多次替换失败而没有记录的次数
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param capacity 跟踪的key数量，向上取整为2的幂，不小于{@link #WAYS}
+     */
+    HeavyHitters(int capacity) {
+        int size = Integer.highestOneBit(Math.max(WAYS, capacity) - 1) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.setMask = size / WAYS - 1;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * 记录一次
+     *
+     * @param first        key的第一部分，不能为null
+     * @param second       key的第二部分，可以为null
+     * @param latencyNanos 耗时
+     */
+    void record(Object first, Object second, long latencyNanos) {
+        int hash = first.hashCode() * 31 + Objects.hashCode(second);
+        int base = ((hash ^ (hash >>> 16)) & setMask) * WAYS;
+        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            Slot min = null;
+            long minCount = Long.MAX_VALUE;
+            for (int i = base; i < base + WAYS; i++) {
+                Slot slot = slots[i];
+                Key key = slot.key;
+                if (key != null && key.matches(first, second)) {
+                    slot.count.incrementAndGet();
+                    slot.histogram.record(latencyNanos);
+                    return;
+                }
+                long count = key == null ? -1 : slot.count.get();
+                if (count < minCount) {
+                    min = slot;
+                    minCount = count;
+                }
+            }
+            Key current = min.key;
+            if (Slot.KEY.compareAndSet(min, current, new Key(first, second))) {
+                long evicted = Math.max(minCount, 0);
+                min.error = evicted;
+                min.histogram.reset();
+                min.count.set(evicted + 1);
+                min.histogram.record(latencyNanos);
+                return;
+            }
+        }
+        dropped.incrementAndGet();
+    }
+
+    /**
+     * 当前跟踪的所有key，没有排序
+     * 直方图是槽位中的直方图本身，读取时槽位可能被并发替换，只用于汇总展示
+     *
+     * @return 快照
+     */
+    List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(slots.length);
+        for (Slot slot : slots) {
+            Key key = slot.key;
+            long count = slot.count.get();
+            if (key != null && count > 0) {
+                entries.add(new Entry(key.first, key.second, count, Math.min(slot.error, count), slot.histogram));
+            }
+        }
+        return entries;
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * 清空所有槽位，槽位和直方图继续复用
+     */
+    void reset() {
+        for (Slot slot : slots) {
+            slot.key = null;
+            slot.count.set(0);
+            slot.error = 0;
+            slot.histogram.reset();
+        }
+        dropped.set(0);
+    }
+
+    private static final class Slot {
+
+        static final AtomicReferenceFieldUpdater<Slot, Key> KEY = AtomicReferenceFieldUpdater.newUpdater(Slot.class, Key.class, "key");
+
+        volatile Key key;
+
+        final AtomicLong count = new AtomicLong();
+
+        /**
+         * 替换时继承的次数
+         */
+        volatile long error;
+
+        final LogLinearHistogram histogram = new LogLinearHistogram();
+    }
+
+    private static final class Key {
+
+        final Object first;
+
+        final Object second;
+
+        Key(Object first, Object second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        boolean matches(Object first, Object second) {
+            return (this.first == first || this.first.equals(first)) && Objects.equals(this.second, second);
+        }
+    }
+
+    /**
+     * 一个高频项的快照
+     */
+    static final class Entry {
+
+        private final Object first;
+
+        private final Object second;
+
+        private final long count;
+
+        private final long error;
+
+        private final LogLinearHistogram histogram;
+
+        Entry(Object first, Object second, long count, long error, LogLinearHistogram histogram) {
+            this.first = first;
+            this.second = second;
+            this.count = count;
+            this.error = error;
+            this.histogram = histogram;
+        }
+
+        Object getFirst() {
+            return first;
+        }
+
+        Object getSecond() {
+            return second;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        long getError() {
+            return error;
+        }
+
+        LogLinearHistogram getHistogram() {
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.ywb.scgextend.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 固定内存的对数线性直方图，和HdrHistogram的分桶方式相同
+ * <p>
+ * 以微秒为单位记录，0~15微秒每个值一个桶；之后每个2的幂区间再线性分成{@link #SUB_BUCKETS}个桶，
+ * 桶宽度不超过桶下界的1/16，分位数取桶的中点，相对误差不超过3.2%。
+ * 超过{@link #MAX_MICROS}(约71分钟)的值记在最后一个桶中。
+ * 桶的数量固定为{@link #BUCKETS}个，和记录了多少个值无关；
+ * 记录时只有两次原子加，不加锁、不创建对象。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+final class LogLinearHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    static final long MAX_MICROS = (1L << 32) - 1;
+
+    private static final int MAX_EXPONENT = 63 - Long.numberOfLeadingZeros(MAX_MICROS);
+
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(BUCKETS);
+
+    private final AtomicLong totalMicros = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时，单位纳秒
+     */
+    void record(long nanos) {
+        long micros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0), MAX_MICROS);
+        counts.incrementAndGet(bucketOf(micros));
+        totalMicros.addAndGet(micros);
+    }
+
+    /**
+     * 清空，并发记录的值可能计入清空前或清空后
+     * 高频项替换槽位时也会清空，通常只有少数几个桶有值，只写有值的桶，且不需要立即对其他线程可见
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts.get(i) != 0) {
+                counts.lazySet(i, 0);
+            }
+        }
+        totalMicros.set(0);
+    }
+
+    /**
+     * 将当前的计数加到快照中
+     *
+     * @param snapshot 快照，可以合并多个直方图
+     */
+    void addTo(Snapshot snapshot) {
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot.counts[i] += counts.get(i);
+        }
+        snapshot.totalMicros += totalMicros.get();
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    static long width(int bucket) {
+        return bucket < SUB_BUCKETS ? 1 : 1L << (bucket / SUB_BUCKETS - 1);
+    }
+
+    /**
+     * 直方图某一时刻的计数，只在读取时创建
+     */
+    static final class Snapshot {
+
+        private final long[] counts = new long[BUCKETS];
+
+        private long totalMicros;
+
+        long count() {
+            long count = 0;
+            for (long bucketCount : counts) {
+                count += bucketCount;
+            }
+            return count;
+        }
+
+        /**
+         * @param quantile 0~1
+         * @return 分位数，单位微秒，没有值时为0
+         */
+        long quantileMicros(double quantile) {
+            long count = this.count();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return lowerBound(i) + (width(i) - 1) / 2;
+                }
+            }
+            return MAX_MICROS;
+        }
+
+        /**
+         * @return 最大值所在桶的上界，单位微秒
+         */
+        long maxMicros() {
+            for (int i = BUCKETS - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return lowerBound(i) + width(i) - 1;
+                }
+            }
+            return 0;
+        }
+
+        double meanMicros() {
+            long count = this.count();
+            return count == 0 ? 0 : totalMicros / (double) count;
+        }
+    }
+}
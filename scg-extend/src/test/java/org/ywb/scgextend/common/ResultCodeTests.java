@@ -0,0 +1,54 @@
+package org.ywb.scgextend.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCodeTests {
+
+    @Test
+    void lookupBuiltInCodes() {
+        assertSame(ResultCode.AMOUNT_CHANGE, ResultCode.of("50002"));
+        assertEquals("服务调用超时", ResultCode.getMsgByCode("10002"));
+        assertEquals("10002", ResultCode.getCodeByMsg("服务调用超时"));
+        assertNull(ResultCode.of("99999"));
+        assertNull(ResultCode.getMsgByCode(null));
+        assertNull(ResultCode.getCodeByMsg("不存在的描述"));
+    }
+
+    @Test
+    void lookupRegisteredCodes() {
+        IResultCode orderNotExist = resultCode("69001", "ResultCodeTests订单不存在");
+        ResultCode.register(orderNotExist);
+        try {
+            assertNull(ResultCode.of("69001"));
+            assertSame(orderNotExist, ResultCode.lookup("69001"));
+            assertEquals("ResultCodeTests订单不存在", ResultCode.getMsgByCode("69001"));
+            assertEquals("69001", ResultCode.getCodeByMsg("ResultCodeTests订单不存在"));
+        } finally {
+            ResultCode.unregister(orderNotExist);
+        }
+        assertNull(ResultCode.lookup("69001"));
+        assertNull(ResultCode.getCodeByMsg("ResultCodeTests订单不存在"));
+    }
+
+    @Test
+    void rejectDuplicateCodes() {
+        assertThrows(IllegalArgumentException.class, () -> ResultCode.register(resultCode("10002", "重复的状态码")));
+        assertEquals("服务调用超时", ResultCode.getMsgByCode("10002"));
+    }
+
+    private static IResultCode resultCode(String code, String message) {
+        return new IResultCode() {
+            @Override
+            public String getCode() {
+                return code;
+            }
+
+            @Override
+            public String getMessage() {
+                return message;
+            }
+        };
+    }
+}
@@ -0,0 +1,139 @@
+package org.ywb.scgextend.common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpringContextHolderTests {
+
+    private ApplicationContext previous;
+
+    private GenericApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        // 其他测试缓存的容器还会继续使用，结束后恢复
+        previous = (ApplicationContext) ReflectionTestUtils.getField(SpringContextHolder.class, "applicationContext");
+        context = new GenericApplicationContext();
+        AtomicInteger sequence = new AtomicInteger();
+        context.registerBean("counter", Counter.class, () -> new Counter(sequence.incrementAndGet()));
+        context.registerBean("prototypeCounter", Prototype.class, () -> new Prototype(sequence.incrementAndGet()),
+                definition -> definition.setScope(BeanDefinition.SCOPE_PROTOTYPE));
+        context.refresh();
+        new SpringContextHolder().setApplicationContext(context);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+        new SpringContextHolder().setApplicationContext(previous);
+    }
+
+    @Test
+    void resolveSingletonOnce() {
+        BeanRef<Counter> ref = SpringContextHolder.ref(Counter.class);
+        assertSame(ref, SpringContextHolder.ref(Counter.class));
+        Counter counter = ref.get();
+
+        long lookups = SpringContextHolder.lookupCount();
+        for (int i = 0; i < 100; i++) {
+            assertSame(counter, ref.get());
+            assertSame(counter, SpringContextHolder.getBean(Counter.class));
+            assertSame(counter, SpringContextHolder.getBean("counter"));
+        }
+        assertEquals(1, SpringContextHolder.lookupCount() - lookups);
+    }
+
+    @Test
+    void resolvePrototypeEveryTime() {
+        BeanRef<Prototype> ref = SpringContextHolder.ref("prototypeCounter", Prototype.class);
+        long lookups = SpringContextHolder.lookupCount();
+        assertNotEquals(ref.get().id, ref.get().id);
+        assertEquals(2, SpringContextHolder.lookupCount() - lookups);
+    }
+
+    @Test
+    void invalidateOnContextRefresh() {
+        BeanRef<Counter> ref = SpringContextHolder.ref(Counter.class);
+        Counter counter = ref.get();
+
+        GenericApplicationContext refreshed = new GenericApplicationContext();
+        refreshed.registerBean(Counter.class, () -> new Counter(100));
+        refreshed.refresh();
+        try {
+            new SpringContextHolder().setApplicationContext(refreshed);
+            assertEquals(100, ref.get().id);
+
+            new SpringContextHolder().setApplicationContext(context);
+            assertSame(counter, ref.get());
+            long lookups = SpringContextHolder.lookupCount();
+            new SpringContextHolder().onRefreshed();
+            assertSame(counter, ref.get());
+            assertEquals(1, SpringContextHolder.lookupCount() - lookups);
+        } finally {
+            refreshed.close();
+        }
+    }
+
+    @Test
+    void resolveFromParentContext() {
+        GenericApplicationContext child = new GenericApplicationContext(context);
+        child.refresh();
+        try {
+            new SpringContextHolder().setApplicationContext(child);
+            Counter counter = SpringContextHolder.getBean(Counter.class);
+
+            long lookups = SpringContextHolder.lookupCount();
+            assertSame(counter, SpringContextHolder.getBean(Counter.class));
+            assertEquals(0, SpringContextHolder.lookupCount() - lookups);
+        } finally {
+            child.close();
+        }
+    }
+
+    @Test
+    void ignoreChildContextRefresh() {
+        Counter counter = SpringContextHolder.getBean(Counter.class);
+        GenericApplicationContext child = new GenericApplicationContext(context);
+        child.refresh();
+        try {
+            long lookups = SpringContextHolder.lookupCount();
+            new SpringContextHolder().onContextRefreshed(new ContextRefreshedEvent(child));
+            assertSame(counter, SpringContextHolder.getBean(Counter.class));
+            assertEquals(0, SpringContextHolder.lookupCount() - lookups);
+
+            new SpringContextHolder().onContextRefreshed(new ContextRefreshedEvent(context));
+            assertSame(counter, SpringContextHolder.getBean(Counter.class));
+            assertEquals(1, SpringContextHolder.lookupCount() - lookups);
+        } finally {
+            child.close();
+        }
+    }
+
+    static class Counter {
+
+        final int id;
+
+        Counter(int id) {
+            this.id = id;
+        }
+    }
+
+    static class Prototype {
+
+        final int id;
+
+        Prototype(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.ywb.scgextend.event;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.exceptions.GatewayException;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ErrorEventRecorderTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writeAndSummarizeAcrossSegments() throws Exception {
+        ErrorEventProperties properties = new ErrorEventProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSize(DataSize.ofBytes(ErrorEventRecorder.MIN_SEGMENT_SIZE));
+        properties.setMaxSegments(100);
+        // 缓冲区能容纳所有事件，不会丢弃
+        ErrorEventRecorder recorder = new ErrorEventRecorder(properties);
+        recorder.start();
+
+        int threads = 4;
+        int perThread = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    if (i % 4 == 0) {
+                        recorder.record(null, IllegalStateException.class, null, 500, 2_000_000);
+                    } else {
+                        recorder.record("user", GatewayException.class, ResultCode.USER_NOT_LOGIN.getCode(), 200, 1_000_000);
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        recorder.stop();
+
+        assertTrue(ErrorEventSegmentWriter.segments(directory).size() > 1, "应该切换过事件文件");
+        List<ErrorEvent> events = new ArrayList<>();
+        ErrorEventReader.read(directory, events::add);
+        assertEquals(threads * perThread, events.size());
+
+        List<ErrorEventReader.Summary> summaries = ErrorEventReader.summarize(directory);
+        assertEquals(2, summaries.size());
+        ErrorEventReader.Summary notLogin = summaries.get(0);
+        assertEquals("user", notLogin.getRouteId());
+        assertEquals(GatewayException.class.getName(), notLogin.getException());
+        assertEquals(ResultCode.USER_NOT_LOGIN.getCode(), notLogin.getCode());
+        assertEquals(200, notLogin.getStatus());
+        assertEquals(threads * perThread * 3 / 4, notLogin.getCount());
+        ErrorEventReader.Summary unhandled = summaries.get(1);
+        assertEquals("none", unhandled.getRouteId());
+        assertEquals("none", unhandled.getCode());
+        assertEquals(500, unhandled.getStatus());
+        assertEquals(2_000_000, unhandled.getMaxLatencyNanos());
+    }
+
+    @Test
+    void writeFullDictionariesIntoSmallestSegment() throws Exception {
+        ErrorEventProperties properties = new ErrorEventProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSize(DataSize.ofBytes(ErrorEventRecorder.MIN_SEGMENT_SIZE));
+        ErrorEventRecorder recorder = new ErrorEventRecorder(properties);
+        recorder.start();
+
+        // 每个事件都是新的超长路由和状态码，字典写满后的值都记为other
+        char[] padding = new char[400];
+        Arrays.fill(padding, 'x');
+        int count = 1100;
+        for (int i = 0; i < count; i++) {
+            recorder.record(new String(padding) + i, IllegalStateException.class, new String(padding) + i, 500, i);
+        }
+        recorder.stop();
+
+        List<ErrorEvent> events = new ArrayList<>();
+        ErrorEventReader.read(directory, events::add);
+        assertEquals(count, events.size());
+        assertEquals("other", events.get(count - 1).getRouteId());
+    }
+
+    @Test
+    void rejectSegmentSmallerThanDictionaries() {
+        ErrorEventProperties properties = new ErrorEventProperties();
+        properties.setEnabled(true);
+        properties.setSegmentSize(DataSize.ofKilobytes(64));
+
+        assertThrows(IllegalArgumentException.class, () -> new ErrorEventRecorder(properties));
+    }
+
+    @Test
+    void dropWhenRingBufferIsFull() {
+        ErrorEventRingBuffer ringBuffer = new ErrorEventRingBuffer(3);
+        assertEquals(4, ringBuffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ringBuffer.publish(i, 0, 0, 0, 200, i));
+        }
+        assertFalse(ringBuffer.publish(4, 0, 0, 0, 200, 4));
+
+        List<Long> timestamps = new ArrayList<>();
+        assertEquals(4, ringBuffer.drain((timestamp, routeId, exceptionId, codeId, status, latency) -> timestamps.add(timestamp), 16));
+        assertTrue(ringBuffer.publish(4, 0, 0, 0, 200, 4));
+        assertEquals(1, ringBuffer.drain((timestamp, routeId, exceptionId, codeId, status, latency) -> timestamps.add(timestamp), 16));
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L), timestamps);
+    }
+}
@@ -0,0 +1,100 @@
+package org.ywb.scgextend.filter;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "scg-extend.concurrency-limit.enabled=true",
+                "scg-extend.concurrency-limit.initial-limit=2",
+                "scg-extend.concurrency-limit.min-limit=1"
+        })
+class AdaptiveConcurrencyLimitFilterTests {
+
+    private static final int STUB_PORT = freePort();
+
+    private static DisposableServer stub;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.gateway.routes[0].id", () -> "user");
+        registry.add("spring.cloud.gateway.routes[0].uri", () -> "http://127.0.0.1:" + STUB_PORT);
+        registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/user/**");
+        registry.add("spring.cloud.gateway.routes[1].id", () -> "busy");
+        registry.add("spring.cloud.gateway.routes[1].uri", () -> "http://127.0.0.1:" + STUB_PORT);
+        registry.add("spring.cloud.gateway.routes[1].predicates[0]", () -> "Path=/busy/**");
+    }
+
+    @BeforeAll
+    static void startStub() {
+        stub = HttpServer.create()
+                .host("127.0.0.1")
+                .port(STUB_PORT)
+                .handle((request, response) -> request.uri().startsWith("/busy")
+                        ? response.status(503).sendString(Mono.just("busy"))
+                        : response.sendString(Mono.just("ok").delayElement(Duration.ofMillis(500))))
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.disposeNow();
+    }
+
+    @Test
+    void rejectRequestsOverLimit() {
+        WebClient webClient = WebClient.create("http://127.0.0.1:" + port);
+        List<Integer> statuses = Flux.range(0, 5)
+                .flatMap(i -> webClient.get().uri("/user/" + i).exchange().map(ClientResponse::rawStatusCode))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(2, statuses.stream().filter(status -> status == 200).count(), String.valueOf(statuses));
+        assertEquals(3, statuses.stream().filter(status -> status == 503).count(), String.valueOf(statuses));
+    }
+
+    @Test
+    void backOffWhenUpstreamReturns5xx() throws InterruptedException {
+        WebClient webClient = WebClient.create("http://127.0.0.1:" + port);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(503, webClient.get().uri("/busy/" + i).exchange().map(ClientResponse::rawStatusCode).block(Duration.ofSeconds(5)));
+        }
+        // 统计窗口到期后的请求触发调整，窗口内全部是上游返回的503
+        Thread.sleep(1100);
+        assertEquals(503, webClient.get().uri("/busy/3").exchange().map(ClientResponse::rawStatusCode).block(Duration.ofSeconds(5)));
+
+        assertEquals(1, concurrencyLimiter.limit("busy"));
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.ywb.scgextend.filter;
+
+import io.netty.channel.ConnectTimeoutException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.ywb.scgextend.common.ResultCode;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "scg-extend.circuit-breaker.failure-threshold=3",
+                "scg-extend.circuit-breaker.open-duration=200ms"
+        })
+class ConnectCircuitBreakerFilterTests {
+
+    private static final int STUB_PORT = freePort();
+
+    private static final AtomicInteger STUB_REQUESTS = new AtomicInteger();
+
+    private static DisposableServer stub;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ConnectCircuitBreakerFilter circuitBreakerFilter;
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.gateway.routes[0].id", () -> "user");
+        registry.add("spring.cloud.gateway.routes[0].uri", () -> "http://127.0.0.1:" + STUB_PORT);
+        registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/user/**");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        if (stub != null) {
+            stub.disposeNow();
+        }
+    }
+
+    @Test
+    void openOnConnectFailuresAndCloseAfterProbe() throws InterruptedException {
+        startStub();
+        get().expectStatus().isOk().expectBody(String.class).isEqualTo("ok");
+
+        stub.disposeNow();
+        for (int i = 0; i < 3; i++) {
+            getFailure();
+        }
+        assertTrue(circuitBreakerFilter.isOpen("user"));
+
+        startStub();
+        int served = STUB_REQUESTS.get();
+        getFailure();
+        assertEquals(served, STUB_REQUESTS.get(), "熔断期间不应转发到上游");
+
+        Thread.sleep(300);
+        // 熔断到期，本次请求触发后台探测，仍然直接失败
+        getFailure();
+        long deadline = System.currentTimeMillis() + Duration.ofSeconds(5).toMillis();
+        while (circuitBreakerFilter.isOpen("user") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(circuitBreakerFilter.isOpen("user"));
+        get().expectStatus().isOk().expectBody(String.class).isEqualTo("ok");
+    }
+
+    @Test
+    void reopenWhenTrialRequestFailsWithOtherError() {
+        ConnectCircuitBreakerFilter filter = lbFilter();
+        openCircuit(filter);
+
+        // lb://无法后台探测，熔断到期后放行的探测请求以非连接异常失败
+        assertThrows(IllegalStateException.class, () -> filter.filter(lbExchange(), e -> Mono.error(new IllegalStateException("timeout"))).block());
+        assertTrue(filter.isOpen("user-lb"));
+
+        // 没有停留在HALF_OPEN，下一次仍然可以放行探测请求
+        filter.filter(lbExchange(), e -> Mono.empty()).block();
+        assertFalse(filter.isOpen("user-lb"));
+    }
+
+    @Test
+    void reopenWhenTrialRequestIsCancelled() {
+        ConnectCircuitBreakerFilter filter = lbFilter();
+        openCircuit(filter);
+
+        filter.filter(lbExchange(), e -> Mono.never()).subscribe().dispose();
+        assertTrue(filter.isOpen("user-lb"));
+
+        filter.filter(lbExchange(), e -> Mono.empty()).block();
+        assertFalse(filter.isOpen("user-lb"));
+    }
+
+    @Test
+    void openOnWrappedConnectTimeout() {
+        ConnectCircuitBreakerFilter filter = lbFilter();
+
+        assertThrows(RuntimeException.class, () -> filter.filter(lbExchange(),
+                e -> Mono.error(new IllegalStateException(new ConnectTimeoutException("connection timed out")))).block());
+        assertTrue(filter.isOpen("user-lb"));
+    }
+
+    @Test
+    void removeCircuitsOfDeletedRoutes() {
+        ConnectCircuitBreakerFilter filter = lbFilter();
+        openCircuit(filter);
+
+        Route user = Route.async().id("user").uri("http://127.0.0.1:" + STUB_PORT).predicate(e -> true).build();
+        filter.onApplicationEvent(new RefreshRoutesResultEvent((RouteLocator) () -> Flux.just(user)));
+
+        assertFalse(filter.isOpen("user-lb"));
+    }
+
+    private static ConnectCircuitBreakerFilter lbFilter() {
+        ConnectCircuitBreakerProperties properties = new ConnectCircuitBreakerProperties();
+        properties.setFailureThreshold(1);
+        properties.setOpenDuration(Duration.ZERO);
+        return new ConnectCircuitBreakerFilter(properties);
+    }
+
+    private static void openCircuit(ConnectCircuitBreakerFilter filter) {
+        Throwable error = assertThrows(RuntimeException.class, () -> filter.filter(lbExchange(), e -> Mono.error(new ConnectException("refused"))).block());
+        assertTrue(Exceptions.unwrap(error) instanceof ConnectException);
+        assertTrue(filter.isOpen("user-lb"));
+    }
+
+    private static ServerWebExchange lbExchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/user/1"));
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, Route.async().id("user-lb").uri("lb://user").predicate(e -> true).build());
+        return exchange;
+    }
+
+    private WebTestClient.ResponseSpec get() {
+        return webTestClient.get().uri("/user/1").exchange();
+    }
+
+    private void getFailure() {
+        get().expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo(ResultCode.SERVICE_OUT_TIME.getCode());
+    }
+
+    private static void startStub() {
+        stub = HttpServer.create()
+                .host("127.0.0.1")
+                .port(STUB_PORT)
+                .handle((request, response) -> {
+                    STUB_REQUESTS.incrementAndGet();
+                    // 不复用连接，停掉stub之后的请求一定会重新建立连接
+                    return response.keepAlive(false).sendString(Mono.just("ok"));
+                })
+                .bindNow();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.ywb.scgextend.filter;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.ywb.scgextend.annotation.RetryableError;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.common.ResultVO;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.PrematureCloseException;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "scg-extend.retry.enabled=true",
+                "scg-extend.retry.attempt-timeout=300ms",
+                "scg-extend.circuit-breaker.enabled=false"
+        })
+class ErrorRetryFilterTests {
+
+    private static final int STUB_PORT = freePort();
+
+    private static final Map<String, AtomicInteger> HITS = new ConcurrentHashMap<>();
+
+    private static DisposableServer stub;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.gateway.routes[0].id", () -> "user");
+        registry.add("spring.cloud.gateway.routes[0].uri", () -> "http://127.0.0.1:" + STUB_PORT);
+        registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/user/**");
+    }
+
+    /**
+     * 每个路径的第一次请求：/user/close直接断开连接，/user/hang5秒后才响应；之后的请求正常返回
+     */
+    @BeforeAll
+    static void startStub() {
+        stub = HttpServer.create()
+                .host("127.0.0.1")
+                .port(STUB_PORT)
+                .handle((request, response) -> {
+                    int hit = HITS.computeIfAbsent(request.uri(), uri -> new AtomicInteger()).incrementAndGet();
+                    if (hit == 1 && request.uri().startsWith("/user/close")) {
+                        response.withConnection(Connection::dispose);
+                        return Mono.never();
+                    }
+                    Mono<String> body = Mono.just("{\"id\":1}");
+                    return response.keepAlive(false)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .sendString(hit == 1 && request.uri().startsWith("/user/hang") ? body.delayElement(Duration.ofSeconds(5)) : body);
+                })
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.disposeNow();
+    }
+
+    @Test
+    void retryRetryableError() {
+        webTestClient.get().uri("/user/close/1").exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("{\"id\":1}");
+        assertEquals(2, HITS.get("/user/close/1").get());
+    }
+
+    @Test
+    void doNotRetryNonIdempotentRequest() {
+        webTestClient.post().uri("/user/close/2").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo(ResultCode.SERVICE_OUT_TIME.getCode());
+        assertEquals(1, HITS.get("/user/close/2").get());
+    }
+
+    @Test
+    void abandonSlowAttempt() {
+        long start = System.nanoTime();
+        webTestClient.get().uri("/user/hang/1").exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("{\"id\":1}");
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        assertEquals(2, HITS.get("/user/hang/1").get());
+        assertEquals(true, elapsedMillis < 3000, "elapsed " + elapsedMillis + "ms");
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 上游直接断开连接视为瞬时故障
+     */
+    @TestConfiguration
+    static class PrematureCloseAdvice {
+
+        @Order(Ordered.HIGHEST_PRECEDENCE)
+        @RestControllerAdvice
+        static class Advice {
+
+            @RetryableError
+            @ExceptionHandler(PrematureCloseException.class)
+            public ResultVO<Void> handler(PrematureCloseException e) {
+                return ResultVO.buildFailure(ResultCode.SERVICE_OUT_TIME);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.ywb.scgextend.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTests {
+
+    @Test
+    void retriesAreProportionalToRequests() {
+        RetryBudget budget = new RetryBudget(0.1, 0, 0);
+        assertFalse(budget.tryAcquire(0));
+
+        for (int i = 0; i < 20; i++) {
+            budget.deposit();
+        }
+        assertTrue(budget.tryAcquire(0));
+        assertTrue(budget.tryAcquire(0));
+        assertFalse(budget.tryAcquire(0));
+    }
+
+    @Test
+    void reserveAllowsMinRetriesPerSecond() {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        RetryBudget budget = new RetryBudget(0, 5, 0);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(budget.tryAcquire(0));
+        }
+        assertFalse(budget.tryAcquire(0));
+        // 每200ms补充一次
+        assertFalse(budget.tryAcquire(second / 5 - 1));
+        assertTrue(budget.tryAcquire(second / 5));
+        // 长时间没有重试后，最多突发5次
+        for (int i = 0; i < 5; i++) {
+            assertTrue(budget.tryAcquire(10 * second));
+        }
+        assertFalse(budget.tryAcquire(10 * second));
+    }
+}
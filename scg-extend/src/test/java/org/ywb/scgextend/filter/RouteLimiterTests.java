@@ -0,0 +1,61 @@
+package org.ywb.scgextend.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteLimiterTests {
+
+    private static final long WINDOW = Duration.ofSeconds(1).toNanos();
+
+    private final AdaptiveConcurrencyProperties properties = new AdaptiveConcurrencyProperties();
+
+    @Test
+    void rejectOverLimit() {
+        RouteLimiter limiter = new RouteLimiter(2, 0);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(1);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void increaseWhenSaturatedWithoutErrors() {
+        RouteLimiter limiter = new RouteLimiter(20, 0);
+        for (int i = 0; i < 21; i++) {
+            limiter.tryAcquire();
+        }
+
+        assertTrue(limiter.maybeAdjust(WINDOW, properties));
+        assertEquals(20 + properties.getAdditiveIncrease(), limiter.limit());
+    }
+
+    @Test
+    void backOffOnErrors() {
+        RouteLimiter limiter = new RouteLimiter(100, 0);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.release(1);
+            limiter.onError();
+        }
+
+        assertFalse(limiter.maybeAdjust(WINDOW - 1, properties));
+        assertTrue(limiter.maybeAdjust(WINDOW, properties));
+        assertEquals(75, limiter.limit());
+    }
+
+    @Test
+    void backOffOnLatencyButNotBelowMinimum() {
+        RouteLimiter limiter = new RouteLimiter(properties.getMinLimit(), 0);
+        limiter.tryAcquire();
+        limiter.release(Duration.ofSeconds(2).toNanos());
+
+        assertTrue(limiter.maybeAdjust(WINDOW, properties));
+        assertEquals(properties.getMinLimit(), limiter.limit());
+    }
+}
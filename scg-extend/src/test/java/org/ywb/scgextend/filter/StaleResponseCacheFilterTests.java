@@ -0,0 +1,125 @@
+package org.ywb.scgextend.filter;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.ywb.scgextend.common.ResultCode;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "scg-extend.stale-cache.enabled=true",
+                "scg-extend.circuit-breaker.enabled=false"
+        })
+class StaleResponseCacheFilterTests {
+
+    private static final int STUB_PORT = freePort();
+
+    private static DisposableServer stub;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.gateway.routes[0].id", () -> "user");
+        registry.add("spring.cloud.gateway.routes[0].uri", () -> "http://127.0.0.1:" + STUB_PORT);
+        registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/user/**");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        if (stub != null) {
+            stub.disposeNow();
+        }
+    }
+
+    @Test
+    void serveStaleResponseWhenUpstreamIsDown() {
+        startStub();
+        webTestClient.get().uri("/user/1?name=a").exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("{\"id\":1}");
+
+        stub.disposeNow();
+        webTestClient.get().uri("/user/1?name=a").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.WARNING, StaleResponseCache.STALE_WARNING)
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody(String.class).isEqualTo("{\"id\":1}");
+        // 没有缓存过的请求仍然走异常处理
+        webTestClient.get().uri("/user/2").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo(ResultCode.SERVICE_OUT_TIME.getCode());
+        // 带Authorization的请求不使用缓存
+        webTestClient.get().uri("/user/1?name=a").header(HttpHeaders.AUTHORIZATION, "Bearer t").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo(ResultCode.SERVICE_OUT_TIME.getCode());
+    }
+
+    @Test
+    void notCacheEncodedResponse() {
+        startStub();
+        // WebTestClient带Accept-Encoding: gzip并自动解压
+        webTestClient.get().uri("/user/gzip").exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("{\"id\":1}");
+
+        stub.disposeNow();
+        // 压缩后的响应体没有Content-Encoding无法回放，走异常处理
+        webTestClient.get().uri("/user/gzip").exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.WARNING)
+                .expectBody()
+                .jsonPath("$.code").isEqualTo(ResultCode.SERVICE_OUT_TIME.getCode());
+    }
+
+    private static void startStub() {
+        stub = HttpServer.create()
+                .host("127.0.0.1")
+                .port(STUB_PORT)
+                .handle((request, response) -> {
+                    response.keepAlive(false).header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+                    if (request.uri().startsWith("/user/gzip")) {
+                        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").sendByteArray(Mono.just(gzip("{\"id\":1}")));
+                    }
+                    return response.sendString(Mono.just("{\"id\":1}"));
+                })
+                .bindNow();
+    }
+
+    private static byte[] gzip(String body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.ywb.scgextend.handler;
+
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.ywb.scgextend.log.ErrorLogProperties;
+import org.ywb.scgextend.log.ErrorLogSampler;
+import reactor.blockhound.BlockingOperationError;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 安装BlockHound后无法卸载，在单独的JVM中运行，见pom中surefire的blockhound-tests
+ */
+@Tag("blockhound")
+class BlockingCallDetectorTests {
+
+    @BeforeAll
+    static void installBlockHound() {
+        assertNotNull(Unpooled.EMPTY_BUFFER);
+        new BlockingCallDetector();
+    }
+
+    @Test
+    void detectBlockingCallOnNettyIoThread() throws InterruptedException {
+        Throwable error = runOn("reactor-http-nio-1", () -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(error instanceof BlockingOperationError, String.valueOf(error));
+    }
+
+    @Test
+    void allowErrorLogSampler() throws InterruptedException {
+        ErrorLogSampler sampler = new ErrorLogSampler(new ErrorLogProperties());
+
+        assertNull(runOn("reactor-http-nio-2", () -> sampler.error(new IllegalStateException("sampled"))));
+    }
+
+    @Test
+    void ignoreOtherThreads() throws InterruptedException {
+        assertNull(runOn("worker-1", () -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+    }
+
+    private static Throwable runOn(String threadName, Runnable task) throws InterruptedException {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        }, threadName);
+        thread.start();
+        thread.join();
+        return error.get();
+    }
+}
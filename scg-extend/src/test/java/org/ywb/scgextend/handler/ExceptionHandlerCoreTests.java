@@ -0,0 +1,410 @@
+package org.ywb.scgextend.handler;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.ywb.scgextend.annotation.RootCause;
+import org.ywb.scgextend.common.IResultCode;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.common.ResultVO;
+import org.ywb.scgextend.exceptions.GatewayException;
+import reactor.core.Exceptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExceptionHandlerCoreTests {
+
+    @Test
+    void resolveRequestArguments() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+        handlerCore.registerAll(Collections.singletonList(new ArgumentAdvice()));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/user/1").header("X-Trace-Id", "trace-1"));
+        ServerRequest request = ServerRequest.create(exchange, ServerCodecConfigurer.create().getReaders());
+
+        HandledError result = handlerCore.handlerException(new UncheckedIOException(new IOException("disk")), request);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, result.getStatus());
+        assertEquals("/user/1|trace-1|disk", result.getResult());
+    }
+
+    @Test
+    void requestArgumentsAreNullWithoutRequest() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+        handlerCore.registerAll(Collections.singletonList(new ArgumentAdvice()));
+
+        HandledError result = handlerCore.handlerException(new UncheckedIOException(new IOException("disk")));
+
+        assertEquals("null|null|disk", result.getResult());
+    }
+
+    @Test
+    void inferExceptionTypeFromParameter() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+        handlerCore.registerAll(Collections.singletonList(new ArgumentAdvice()));
+
+        assertEquals("inferred", handlerCore.handlerException(new IllegalArgumentException()).getResult());
+    }
+
+    @Test
+    void rejectUnsupportedArgument() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+
+        assertThrows(IllegalStateException.class, () -> handlerCore.registerAll(Collections.singletonList(new InvalidAdvice())));
+    }
+
+    @Test
+    void rejectAmbiguousHandlerInSameAdvice() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> handlerCore.registerAll(Collections.singletonList(new AmbiguousAdvice())));
+        assertTrue(e.getMessage().startsWith("异常类型[java.lang.IllegalStateException]"), e.getMessage());
+    }
+
+    @Test
+    void rejectNarrowedRootCause() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> handlerCore.registerAll(Collections.singletonList(new NarrowedRootCauseAdvice())));
+        assertTrue(e.getMessage().startsWith("@RootCause参数的类型只能是Throwable"), e.getMessage());
+    }
+
+    @Test
+    void rejectUnassignableExceptionParameter() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> handlerCore.registerAll(Collections.singletonList(new SecondExceptionAdvice())));
+        assertTrue(e.getMessage().contains("不能传给java.lang.IllegalArgumentException类型的参数"), e.getMessage());
+    }
+
+    @Test
+    void preferNearestTypeIncludingInterfaces() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+        handlerCore.registerAll(Collections.singletonList(new HierarchyAdvice()));
+
+        assertEquals("marker", handlerCore.handlerException(new MarkedException()).getResult());
+        assertEquals("runtime", handlerCore.handlerException(new IllegalStateException()).getResult());
+    }
+
+    @Test
+    void preferLowerOrderAdvice() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+        handlerCore.registerAll(Arrays.asList(new LowPriorityAdvice(), new HighPriorityAdvice()));
+
+        assertEquals("high", handlerCore.handlerException(new IllegalStateException()).getResult());
+    }
+
+    @Test
+    void unwrapWrapperExceptions() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+        handlerCore.registerAll(Collections.singletonList(new HierarchyAdvice()));
+
+        assertEquals("marker", handlerCore.handlerException(new CompletionException(new MarkedException())).getResult());
+        assertEquals("marker", handlerCore.handlerException(Exceptions.propagate(new MarkedException())).getResult());
+    }
+
+    @Test
+    void failWithoutNpeBeforeRegistration() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> handlerCore.handlerException(new IllegalStateException()));
+        assertEquals("未定义异常处理方法，处理异常失败", e.getMessage());
+    }
+
+    @Test
+    void replaceRegistryOnReRegistration() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+        handlerCore.registerAll(Collections.singletonList(new LowPriorityAdvice()));
+        assertEquals("low", handlerCore.handlerException(new IllegalStateException()).getResult());
+
+        handlerCore.registerAll(Collections.singletonList(new HighPriorityAdvice()));
+
+        assertEquals("high", handlerCore.handlerException(new IllegalStateException()).getResult());
+    }
+
+    @Test
+    void reuseHandledErrorForConstantResult() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+        handlerCore.registerAll(Collections.singletonList(new ConstantAdvice()));
+
+        HandledError first = handlerCore.handlerException(new IllegalStateException());
+
+        assertSame(first, handlerCore.handlerException(new IllegalStateException()));
+        assertEquals(HttpStatus.BAD_GATEWAY.value(), first.getStatusCode());
+        assertSame(ConstantAdvice.RESULT, first.toAttributes().get("result"));
+    }
+
+    @Test
+    void reuseHandledErrorForSharedGatewayException() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+        SharedAdvice advice = new SharedAdvice();
+        handlerCore.registerAll(Collections.singletonList(advice));
+        GatewayException notLogin = GatewayException.of(ResultCode.USER_NOT_LOGIN);
+
+        HandledError first = handlerCore.handlerException(notLogin);
+
+        assertSame(notLogin, GatewayException.of(ResultCode.USER_NOT_LOGIN));
+        assertEquals(0, notLogin.getStackTrace().length);
+        assertSame(first, handlerCore.handlerException(GatewayException.of(ResultCode.USER_NOT_LOGIN)));
+        assertNotSame(first, handlerCore.handlerException(GatewayException.of(ResultCode.USER_TOKEN_TIMEOUT)));
+        assertEquals(2, advice.invocations);
+        assertEquals(ResultCode.USER_NOT_LOGIN.getCode(), ((ResultVO<?>) first.getResult()).getCode());
+
+        handlerCore.handlerException(new GatewayException(ResultCode.USER_NOT_LOGIN));
+        handlerCore.handlerException(new GatewayException(ResultCode.USER_NOT_LOGIN));
+        assertEquals(4, advice.invocations);
+    }
+
+    @Test
+    void notShareUnregisteredResultCode() {
+        IResultCode unregistered = new IResultCode() {
+            @Override
+            public String getCode() {
+                return "69999";
+            }
+
+            @Override
+            public String getMessage() {
+                return "未注册的状态码";
+            }
+        };
+
+        GatewayException exception = GatewayException.of(unregistered);
+
+        assertFalse(exception.isShared());
+        assertNotSame(exception, GatewayException.of(unregistered));
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals("69999", exception.toResult().getCode());
+    }
+
+    @Test
+    void onlyContainerInstanceSetsGatewayExceptionStackTrace() {
+        ExceptionHandlerProperties properties = new ExceptionHandlerProperties();
+        properties.setGatewayExceptionStackTrace(false);
+        boolean enabled = GatewayException.isStackTraceEnabled();
+        try {
+            ExceptionHandlerCore handlerCore = new ExceptionHandlerCore(properties);
+            assertEquals(enabled, GatewayException.isStackTraceEnabled());
+
+            handlerCore.applyGatewayExceptionStackTrace();
+            assertFalse(GatewayException.isStackTraceEnabled());
+        } finally {
+            GatewayException.setStackTraceEnabled(enabled);
+        }
+    }
+
+    @Test
+    void registerFromGeneratedTable() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+        GeneratedAdvice_ExceptionHandlers.invocations = 0;
+        handlerCore.registerAll(Collections.singletonList(new GeneratedAdvice()));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/user/1"));
+        ServerRequest request = ServerRequest.create(exchange, ServerCodecConfigurer.create().getReaders());
+
+        assertEquals("state", handlerCore.handlerException(new IllegalStateException("state")).getResult());
+        HandledError handledError = handlerCore.handlerException(new UncheckedIOException(new IOException("disk")), request);
+
+        assertEquals("/user/1|disk", handledError.getResult());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, handledError.getStatus());
+        assertEquals(2, GeneratedAdvice_ExceptionHandlers.invocations);
+        assertNull(handlerCore.resolveHandler(new IllegalStateException()).invoker);
+    }
+
+    @Test
+    void fallbackToReflectionForStaleTable() {
+        ExceptionHandlerCore handlerCore = new ExceptionHandlerCore();
+        handlerCore.registerAll(Collections.singletonList(new StaleAdvice()));
+
+        assertEquals("reflection", handlerCore.handlerException(new IllegalStateException()).getResult());
+        assertNotNull(handlerCore.resolveHandler(new IllegalStateException()).invoker);
+    }
+
+    public static class ArgumentAdvice {
+
+        @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+        @ExceptionHandler(UncheckedIOException.class)
+        public String handler(ServerWebExchange exchange, UncheckedIOException e, HttpHeaders headers, @RootCause Throwable cause) {
+            String path = exchange != null ? exchange.getRequest().getPath().value() : null;
+            String traceId = headers != null ? headers.getFirst("X-Trace-Id") : null;
+            return path + "|" + traceId + "|" + cause.getMessage();
+        }
+
+        @ExceptionHandler
+        public String handler(IllegalArgumentException e) {
+            return "inferred";
+        }
+    }
+
+    interface Marker {
+    }
+
+    static class MarkedException extends IllegalStateException implements Marker {
+    }
+
+    public static class HierarchyAdvice {
+
+        @ExceptionHandler
+        public String marker(Marker e) {
+            return "marker";
+        }
+
+        @ExceptionHandler(RuntimeException.class)
+        public String runtime(RuntimeException e) {
+            return "runtime";
+        }
+    }
+
+    @Order(2)
+    public static class LowPriorityAdvice {
+
+        @ExceptionHandler(IllegalStateException.class)
+        public String handler(IllegalStateException e) {
+            return "low";
+        }
+    }
+
+    @Order(1)
+    public static class HighPriorityAdvice {
+
+        @ExceptionHandler(IllegalStateException.class)
+        public String handler(IllegalStateException e) {
+            return "high";
+        }
+    }
+
+    public static class ConstantAdvice {
+
+        static final ResultVO<Void> RESULT = ResultVO.constant(ResultCode.SERVICE_EXCEPTION);
+
+        @ResponseStatus(HttpStatus.BAD_GATEWAY)
+        @ExceptionHandler(IllegalStateException.class)
+        public ResultVO<Void> handler(IllegalStateException e) {
+            return RESULT;
+        }
+    }
+
+    public static class SharedAdvice {
+
+        int invocations;
+
+        @ExceptionHandler(GatewayException.class)
+        public ResultVO<Void> handler(GatewayException e) {
+            invocations++;
+            return e.toResult();
+        }
+    }
+
+    public static class InvalidAdvice {
+
+        @ExceptionHandler(IllegalStateException.class)
+        public String handler(IllegalStateException e, String unsupported) {
+            return unsupported;
+        }
+    }
+
+    public static class AmbiguousAdvice {
+
+        @ExceptionHandler(IllegalStateException.class)
+        public String first(IllegalStateException e) {
+            return "first";
+        }
+
+        @ExceptionHandler
+        public String second(IllegalStateException e) {
+            return "second";
+        }
+    }
+
+    public static class NarrowedRootCauseAdvice {
+
+        @ExceptionHandler(UncheckedIOException.class)
+        public String handler(UncheckedIOException e, @RootCause IOException cause) {
+            return cause.getMessage();
+        }
+    }
+
+    public static class SecondExceptionAdvice {
+
+        @ExceptionHandler(IllegalStateException.class)
+        public String handler(IllegalStateException e, IllegalArgumentException other) {
+            return other.getMessage();
+        }
+    }
+}
+
+/**
+ * 和编译期生成的处理方法表对应的advice
+ */
+class GeneratedAdvice {
+
+    @ExceptionHandler(IllegalStateException.class)
+    public String handler(IllegalStateException e) {
+        return e.getMessage();
+    }
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler
+    public String handler(ServerWebExchange exchange, UncheckedIOException e) {
+        return exchange.getRequest().getPath() + "|" + e.getCause().getMessage();
+    }
+}
+
+/**
+ * 和scg-extend-processor生成的代码相同
+ */
+final class GeneratedAdvice_ExceptionHandlers implements ExceptionHandlerTable {
+
+    static int invocations;
+
+    @Override
+    public List<Entry> entries() {
+        return Arrays.asList(
+                new Entry("handler", new Class<?>[]{IllegalStateException.class}, new Class<?>[]{IllegalStateException.class},
+                        (advice, e, args) -> {
+                            invocations++;
+                            return ((GeneratedAdvice) advice).handler((IllegalStateException) e);
+                        }),
+                new Entry("handler", new Class<?>[]{ServerWebExchange.class, UncheckedIOException.class}, new Class<?>[]{UncheckedIOException.class},
+                        (advice, e, args) -> {
+                            invocations++;
+                            return ((GeneratedAdvice) advice).handler((ServerWebExchange) args[0], (UncheckedIOException) args[1]);
+                        }));
+    }
+}
+
+/**
+ * 修改了advice之后没有重新生成的处理方法表
+ */
+class StaleAdvice {
+
+    @ExceptionHandler(IllegalStateException.class)
+    public String handler(IllegalStateException e) {
+        return "reflection";
+    }
+}
+
+final class StaleAdvice_ExceptionHandlers implements ExceptionHandlerTable {
+
+    @Override
+    public List<Entry> entries() {
+        return Collections.singletonList(new Entry("removed", new Class<?>[]{IllegalStateException.class},
+                new Class<?>[]{IllegalStateException.class}, (advice, e, args) -> "generated"));
+    }
+}
@@ -0,0 +1,51 @@
+package org.ywb.scgextend.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.autoconfigure.web.ErrorProperties;
+import org.springframework.boot.autoconfigure.web.ResourceProperties;
+import org.springframework.boot.web.reactive.error.ErrorAttributes;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.ywb.scgextend.event.ErrorEventProperties;
+import org.ywb.scgextend.event.ErrorEventRecorder;
+import org.ywb.scgextend.filter.AdaptiveConcurrencyLimiter;
+import org.ywb.scgextend.filter.AdaptiveConcurrencyProperties;
+import org.ywb.scgextend.filter.StaleResponseCache;
+import org.ywb.scgextend.filter.StaleResponseCacheProperties;
+import org.ywb.scgextend.metrics.ErrorHotspotProperties;
+import org.ywb.scgextend.metrics.ErrorHotspots;
+import org.ywb.scgextend.metrics.ErrorMetrics;
+
+/**
+ * 在容器之外创建{@link GlobalExceptionHandler}，供单元测试和基准测试使用
+ * 除了处理方法注册表，其余依赖都使用默认配置创建
+ *
+ * @author yuwenbo
+ */
+public final class GlobalExceptionHandlerFactory {
+
+    private GlobalExceptionHandlerFactory() {
+    }
+
+    public static GlobalExceptionHandler create(ExceptionHandlerCore handlerCore, ErrorAttributes errorAttributes, ServerCodecConfigurer codecConfigurer) {
+        return create(handlerCore, errorAttributes, codecConfigurer, new ErrorHotspots(new ErrorHotspotProperties()));
+    }
+
+    public static GlobalExceptionHandler create(ExceptionHandlerCore handlerCore, ErrorAttributes errorAttributes, ServerCodecConfigurer codecConfigurer, ErrorHotspots errorHotspots) {
+        GenericApplicationContext applicationContext = new GenericApplicationContext();
+        applicationContext.refresh();
+        GlobalExceptionHandler exceptionHandler = new GlobalExceptionHandler(errorAttributes, new ResourceProperties(), new ErrorProperties(), applicationContext,
+                handlerCore,
+                new ErrorBodyCache(new ObjectMapper()),
+                new ErrorMetrics(new SimpleMeterRegistry()),
+                new RouteErrorPolicyRegistry(),
+                new StaleResponseCache(new StaleResponseCacheProperties()),
+                new AdaptiveConcurrencyLimiter(new AdaptiveConcurrencyProperties(), new SimpleMeterRegistry()),
+                new ErrorEventRecorder(new ErrorEventProperties()),
+                errorHotspots);
+        exceptionHandler.setMessageWriters(codecConfigurer.getWriters());
+        exceptionHandler.setMessageReaders(codecConfigurer.getReaders());
+        return exceptionHandler;
+    }
+}
@@ -0,0 +1,99 @@
+package org.ywb.scgextend.handler;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.ywb.scgextend.common.ResultCode;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.cloud.gateway.routes[0].id=user",
+                "spring.cloud.gateway.routes[0].uri=http://127.0.0.1:65530/user",
+                "spring.cloud.gateway.routes[0].predicates[0]=Path=/user/**",
+                "spring.cloud.gateway.routes[1].id=order",
+                "spring.cloud.gateway.routes[1].uri=http://127.0.0.1:65530/order",
+                "spring.cloud.gateway.routes[1].predicates[0]=Path=/order/**",
+                "spring.cloud.gateway.routes[1].metadata.error-policy.status=503",
+                "spring.cloud.gateway.routes[1].metadata.error-policy.code=10001",
+                "spring.cloud.gateway.routes[2].id=pay",
+                "spring.cloud.gateway.routes[2].uri=http://127.0.0.1:65530/pay",
+                "spring.cloud.gateway.routes[2].predicates[0]=Path=/pay/**",
+                "spring.cloud.gateway.routes[2].metadata.error-policy.status=502",
+                "spring.cloud.gateway.routes[2].metadata.error-policy.code=10003",
+                "spring.cloud.gateway.routes[2].metadata.error-policy.message=支付服务不可用",
+                "spring.cloud.gateway.routes[2].metadata.error-policy.fail-fast=true"
+        })
+class GlobalExceptionHandlerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void connectionRefusedRendersCachedBody() {
+        for (int i = 0; i < 2; i++) {
+            webTestClient.get().uri("/user/1")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                    .expectBody()
+                    .jsonPath("$.code").isEqualTo(ResultCode.SERVICE_OUT_TIME.getCode())
+                    .jsonPath("$.message").isEqualTo("网络异常,请稍候再试!");
+        }
+    }
+
+    @Test
+    void routePolicyOverridesStatusAndCode() {
+        webTestClient.get().uri("/order/1")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                .expectBody()
+                .jsonPath("$.code").isEqualTo(ResultCode.SERVICE_NOT_EXIST.getCode())
+                .jsonPath("$.message").isEqualTo(ResultCode.SERVICE_NOT_EXIST.getMessage());
+    }
+
+    @Test
+    void failFastRouteSkipsHandler() {
+        webTestClient.get().uri("/pay/1")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_GATEWAY)
+                .expectBody()
+                .jsonPath("$.code").isEqualTo(ResultCode.SERVICE_EXCEPTION.getCode())
+                .jsonPath("$.message").isEqualTo("支付服务不可用");
+    }
+
+    @Test
+    void errorMetricsAreScrapable() {
+        webTestClient.get().uri("/user/1").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .value(body -> {
+                    assertTrue(body.contains("scg_gateway_errors_total{code=\"10002\""), body);
+                    assertTrue(body.contains("route=\"user\""), body);
+                    assertTrue(body.contains("scg_gateway_error_resolve_seconds_count"), body);
+                    assertTrue(body.contains("scg_gateway_error_invoke_seconds_count"), body);
+                    assertTrue(body.contains("scg_gateway_error_serialize_seconds_count"), body);
+                });
+    }
+
+    @Test
+    void errorHotspotsEndpointListsOffenders() {
+        for (int i = 0; i < 3; i++) {
+            webTestClient.get().uri("/user/1").exchange().expectStatus().isOk();
+        }
+        webTestClient.get().uri("/actuator/errorhotspots?top=5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.enabled").isEqualTo(true)
+                .jsonPath("$.routes[?(@.route == 'user')].count").isNotEmpty()
+                .jsonPath("$.routeExceptions[?(@.route == 'user' && @.exception =~ /.*ConnectException/)].latency.p99").isNotEmpty()
+                .jsonPath("$.total.count").value(count -> assertTrue(((Number) count).longValue() >= 3));
+    }
+}
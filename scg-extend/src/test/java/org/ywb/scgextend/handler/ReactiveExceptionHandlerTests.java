@@ -0,0 +1,169 @@
+package org.ywb.scgextend.handler;
+
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.reactive.error.DefaultErrorAttributes;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.result.view.ViewResolver;
+import org.ywb.scgextend.annotation.OffloadHandler;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.common.ResultVO;
+import org.ywb.scgextend.exceptions.ExceptionHandlerInvokeException;
+import org.ywb.scgextend.filter.RequestStartWebFilter;
+import org.ywb.scgextend.metrics.ErrorHotspotProperties;
+import org.ywb.scgextend.metrics.ErrorHotspots;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 安装BlockHound后无法卸载，在单独的JVM中运行，见pom中surefire的blockhound-tests
+ */
+@Tag("blockhound")
+class ReactiveExceptionHandlerTests {
+
+    private ExceptionHandlerCore handlerCore;
+
+    private GlobalExceptionHandler exceptionHandler;
+
+    private DefaultErrorAttributes errorAttributes;
+
+    private ServerCodecConfigurer codecConfigurer;
+
+    private ErrorHotspots errorHotspots;
+
+    @BeforeAll
+    static void installBlockHound() {
+        // netty初始化时会读取系统文件，提前初始化，避免结果取决于用例的执行顺序
+        assertNotNull(Unpooled.EMPTY_BUFFER);
+        // 和BlockingCallDetectorTests在同一个JVM中运行，谁先执行都安装同样的配置
+        new BlockingCallDetector();
+    }
+
+    @BeforeEach
+    void setUp() {
+        handlerCore = new ExceptionHandlerCore();
+        handlerCore.registerAll(Collections.singletonList(new ReactiveAdvice()));
+        errorAttributes = new DefaultErrorAttributes();
+        codecConfigurer = ServerCodecConfigurer.create();
+        errorHotspots = new ErrorHotspots(new ErrorHotspotProperties());
+        exceptionHandler = GlobalExceptionHandlerFactory.create(handlerCore, errorAttributes, codecConfigurer, errorHotspots);
+    }
+
+    @Test
+    void renderMonoResultWithoutBlocking() {
+        MockServerWebExchange exchange = render(new IllegalStateException("async"));
+        String body = exchange.getResponse().getBodyAsString().block(Duration.ofSeconds(5));
+        assertNotNull(body);
+        assertTrue(body.contains("\"code\":\"" + ResultCode.SERVICE_EXCEPTION.getCode() + "\""), body);
+        assertTrue(body.contains("async"), body);
+    }
+
+    @Test
+    void detectBlockingHandler() {
+        Throwable error = assertThrows(ExceptionHandlerInvokeException.class, () -> Mono
+                .fromCallable(() -> handlerCore.handlerException(new UnsupportedOperationException()))
+                .subscribeOn(Schedulers.parallel())
+                .block(Duration.ofSeconds(5)));
+        assertTrue(error.getCause() instanceof BlockingOperationError, String.valueOf(error.getCause()));
+    }
+
+    @Test
+    void renderOffloadedHandlerOutsideEventLoop() {
+        MockServerWebExchange exchange = render(new IllegalArgumentException("offloaded"));
+        String body = exchange.getResponse().getBodyAsString().block(Duration.ofSeconds(5));
+        assertNotNull(body);
+        assertTrue(body.contains("offloaded"), body);
+    }
+
+    @Test
+    void renderServiceExceptionWhenOffloadedHandlerTimesOut() {
+        MockServerWebExchange exchange = render(new ArithmeticException("slow"));
+        String body = exchange.getResponse().getBodyAsString().block(Duration.ofSeconds(5));
+        assertNotNull(body);
+        assertTrue(body.contains("\"code\":\"" + ResultCode.SERVICE_EXCEPTION.getCode() + "\""), body);
+        assertFalse(body.contains("slow"), body);
+    }
+
+    @Test
+    void measureLatencyFromRequestStart() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/user/1"));
+        exchange.getAttributes().put(RequestStartWebFilter.REQUEST_START_ATTR, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(200));
+
+        render(exchange, new IllegalStateException("async"));
+
+        // 包括进入异常处理之前的200ms，而不只是处理方法的10ms
+        double max = errorHotspots.report(1).getTotal().getMax();
+        assertTrue(max >= 180, String.valueOf(max));
+    }
+
+    private MockServerWebExchange render(Throwable throwable) {
+        return render(MockServerWebExchange.from(MockServerHttpRequest.get("/user/1")), throwable);
+    }
+
+    private MockServerWebExchange render(MockServerWebExchange exchange, Throwable throwable) {
+        errorAttributes.storeErrorInformation(throwable, exchange);
+        ServerResponse.Context context = new ServerResponse.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return codecConfigurer.getWriters();
+            }
+
+            @Override
+            public List<ViewResolver> viewResolvers() {
+                return Collections.emptyList();
+            }
+        };
+        // 在reactor的非阻塞线程上执行，处理方法中有阻塞调用时BlockHound会直接报错
+        Mono.defer(() -> exceptionHandler.renderErrorResponse(ServerRequest.create(exchange, codecConfigurer.getReaders())))
+                .flatMap(response -> response.writeTo(exchange, context))
+                .subscribeOn(Schedulers.parallel())
+                .block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+    public static class ReactiveAdvice {
+
+        @ExceptionHandler(IllegalStateException.class)
+        public Mono<ResultVO<Void>> handler(IllegalStateException e) {
+            return Mono.delay(Duration.ofMillis(10))
+                    .map(tick -> ResultVO.buildFailure(ResultCode.SERVICE_EXCEPTION.getCode(), e.getMessage()));
+        }
+
+        @ExceptionHandler(UnsupportedOperationException.class)
+        public ResultVO<Void> handler(UnsupportedOperationException e) throws InterruptedException {
+            Thread.sleep(1);
+            return ResultVO.buildFailure(ResultCode.SERVICE_EXCEPTION);
+        }
+
+        @OffloadHandler
+        @ExceptionHandler(IllegalArgumentException.class)
+        public ResultVO<Void> handler(IllegalArgumentException e) throws InterruptedException {
+            Thread.sleep(50);
+            return ResultVO.buildFailure(ResultCode.PARAM_ERROR.getCode(), e.getMessage());
+        }
+
+        @OffloadHandler(timeoutMillis = 100)
+        @ExceptionHandler(ArithmeticException.class)
+        public ResultVO<Void> handler(ArithmeticException e) throws InterruptedException {
+            Thread.sleep(2000);
+            return ResultVO.buildFailure(ResultCode.PARAM_ERROR.getCode(), e.getMessage());
+        }
+    }
+}
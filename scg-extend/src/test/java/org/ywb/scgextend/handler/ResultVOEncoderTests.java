@@ -0,0 +1,71 @@
+package org.ywb.scgextend.handler;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.common.ResultVO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultVOEncoderTests {
+
+    private static final List<ResultVO<?>> VALUES = Arrays.asList(
+            ResultVO.buildFailure(ResultCode.PARAM_ERROR),
+            ResultVO.buildFailure("30001", "参数\"name\"不能为空", Collections.singletonMap("field", "name")),
+            ResultVO.buildSuccess(Arrays.asList(1, 2, 3)),
+            ResultVO.constant(ResultCode.SERVICE_OUT_TIME));
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    @Test
+    void sameOutputAsJackson() throws Exception {
+        assertSameOutput(new ObjectMapper());
+    }
+
+    @Test
+    void sameOutputAsJacksonWithoutNulls() throws Exception {
+        assertSameOutput(new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL));
+    }
+
+    @Test
+    void selectedBeforeJacksonWriter() {
+        ServerCodecConfigurer configurer = ServerCodecConfigurer.create();
+        ErrorHandlerConfiguration.resultVOCodecCustomizer(new ObjectMapper()).customize(configurer);
+
+        HttpMessageWriter<?> writer = configurer.getWriters().stream()
+                .filter(w -> w.canWrite(ResolvableType.forClass(ResultVO.class), MediaType.APPLICATION_JSON))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+
+        assertTrue(((EncoderHttpMessageWriter<?>) writer).getEncoder() instanceof ResultVOEncoder);
+    }
+
+    private void assertSameOutput(ObjectMapper objectMapper) throws Exception {
+        ResultVOEncoder encoder = new ResultVOEncoder(objectMapper);
+        assertNotNull(ReflectionTestUtils.getField(encoder, "properties"), "应当直接写出code、message，不退化为Jackson");
+        for (ResultVO<?> value : VALUES) {
+            DataBuffer buffer = encoder.encodeValue(value, bufferFactory, ResolvableType.forInstance(value), MediaType.APPLICATION_JSON, null);
+            try {
+                assertEquals(objectMapper.writeValueAsString(value), buffer.toString(StandardCharsets.UTF_8));
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+    }
+}
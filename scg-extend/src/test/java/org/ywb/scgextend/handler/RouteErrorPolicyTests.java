@@ -0,0 +1,74 @@
+package org.ywb.scgextend.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.http.HttpStatus;
+import org.ywb.scgextend.common.ResultCode;
+import org.ywb.scgextend.common.ResultVO;
+import reactor.core.publisher.Flux;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteErrorPolicyTests {
+
+    @Test
+    void failFastWithOnlyStatusUsesDefaultBody() {
+        Map<String, Object> config = new HashMap<>(4);
+        config.put("status", "503");
+        config.put("fail-fast", "true");
+
+        RouteErrorPolicy policy = RouteErrorPolicy.compile("pay", Collections.singletonMap(RouteErrorPolicy.METADATA_KEY, config), ResultVO::constant);
+
+        assertNotNull(policy);
+        assertTrue(policy.isFailFast());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, policy.getStatus());
+        ResultVO<?> body = policy.getBody();
+        assertNotNull(body);
+        assertEquals(ResultCode.SERVICE_EXCEPTION.getCode(), body.getCode());
+    }
+
+    @Test
+    void keepHandlerBodyWithoutFailFast() {
+        RouteErrorPolicy policy = RouteErrorPolicy.compile("user",
+                Collections.singletonMap(RouteErrorPolicy.METADATA_KEY, Collections.singletonMap("status", 503)), ResultVO::constant);
+
+        assertNotNull(policy);
+        assertNull(policy.getBody());
+        assertEquals("handler", policy.body("handler"));
+    }
+
+    @Test
+    void reuseConstantBodyAcrossRefreshes() {
+        Map<String, Object> config = new HashMap<>(4);
+        config.put("code", "9999");
+        config.put("message", "用户服务不可用");
+        Route route = Route.async()
+                .id("user")
+                .uri("http://localhost")
+                .predicate(exchange -> true)
+                .metadata(RouteErrorPolicy.METADATA_KEY, config)
+                .build();
+        RouteLocator routeLocator = () -> Flux.just(route);
+        RouteErrorPolicyRegistry registry = new RouteErrorPolicyRegistry();
+        ErrorBodyCache errorBodyCache = new ErrorBodyCache(new ObjectMapper());
+
+        registry.onApplicationEvent(new RefreshRoutesResultEvent(routeLocator));
+        ResultVO<?> body = registry.get("user").getBody();
+        errorBodyCache.get(body);
+        int size = errorBodyCache.size();
+        for (int i = 0; i < 3; i++) {
+            registry.onApplicationEvent(new RefreshRoutesResultEvent(routeLocator));
+            errorBodyCache.get(registry.get("user").getBody());
+        }
+
+        assertSame(body, registry.get("user").getBody());
+        assertEquals(size, errorBodyCache.size());
+    }
+}
@@ -0,0 +1,102 @@
+package org.ywb.scgextend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 网关异常处理链路的压测，默认不运行：mvn -Ploadtest test
+ * <p>
+ * 启动完整的网关，路由指向进程内的{@link StubUpstream}，依次压测以下场景：
+ * healthy：上游正常；slow：上游延迟返回；refuse：上游拒绝连接，走异常处理；error_5xx：上游返回503
+ * 结果以JSON输出到loadtest.report(默认target/loadtest/gateway-load-report.json)，用于对比不同版本。
+ * 可以通过系统属性调整：loadtest.duration、loadtest.warmup(秒)、loadtest.concurrency、loadtest.slow-delay(毫秒)
+ * 关闭了熔断，refuse场景的每个请求都经过异常处理，而不是熔断后的快速失败。
+ * </p>
+ *
+ * @author yuwenbo
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "scg-extend.circuit-breaker.enabled=false",
+                "logging.level.org.ywb.scgextend=warn",
+                "logging.level.org.ywb.scgextend.loadtest=info"
+        })
+class GatewayLoadTests {
+
+    private static final int STUB_PORT = freePort();
+
+    private static final StubUpstream STUB = new StubUpstream(STUB_PORT, Duration.ofMillis(Long.getLong("loadtest.slow-delay", 50)));
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.gateway.routes[0].id", () -> "user");
+        registry.add("spring.cloud.gateway.routes[0].uri", () -> "http://127.0.0.1:" + STUB_PORT);
+        registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/user/**");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.stop();
+    }
+
+    @Test
+    void errorPathUnderLoad() throws Exception {
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 3));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 10));
+        int concurrency = Integer.getInteger("loadtest.concurrency", 64);
+        LoadGenerator generator = new LoadGenerator(port, concurrency);
+
+        List<LoadGenerator.ScenarioResult> results = new ArrayList<>();
+        for (StubUpstream.Mode mode : StubUpstream.Mode.values()) {
+            STUB.switchTo(mode);
+            LoadGenerator.ScenarioResult result = generator.run(mode.name().toLowerCase(), "/user/1", warmup, duration);
+            log.info("{}", result);
+            results.add(result);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("scenarios", results);
+        File file = new File(System.getProperty("loadtest.report", "target/loadtest/gateway-load-report.json"));
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+
+        for (LoadGenerator.ScenarioResult result : results) {
+            assertTrue(result.getRequests() > 0, result.getName() + "没有完成任何请求");
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.ywb.scgextend.loadtest;
+
+import lombok.Data;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 闭环压测：固定数量的虚拟用户，每个用户收到响应后立即发出下一个请求
+ * 延迟记录在HdrHistogram中；分配速率是整个进程(网关、上游、压测客户端)所有线程分配的字节数
+ *
+ * @author yuwenbo
+ */
+class LoadGenerator {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final HttpClient client;
+
+    private final int concurrency;
+
+    LoadGenerator(int port, int concurrency) {
+        this.concurrency = concurrency;
+        this.client = HttpClient.create(ConnectionProvider.create("load-generator", concurrency))
+                .baseUrl("http://127.0.0.1:" + port);
+    }
+
+    /**
+     * 先预热，再压测指定的时间
+     *
+     * @param name     场景名称
+     * @param path     请求路径
+     * @param warmup   预热时间，结果不计入
+     * @param duration 压测时间
+     * @return 压测结果
+     */
+    ScenarioResult run(String name, String path, Duration warmup, Duration duration) {
+        this.drive(path, warmup, new Recorder(MAX_LATENCY_NANOS, 3), new ConcurrentHashMap<>(8), new LongAdder());
+
+        Recorder recorder = new Recorder(MAX_LATENCY_NANOS, 3);
+        Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>(8);
+        LongAdder errors = new LongAdder();
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        this.drive(path, duration, recorder, statusCounts, errors);
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        Histogram histogram = recorder.getIntervalHistogram();
+        double seconds = elapsed / (double) TimeUnit.SECONDS.toNanos(1);
+        long requests = histogram.getTotalCount();
+        ScenarioResult result = new ScenarioResult();
+        result.setName(name);
+        result.setConcurrency(concurrency);
+        result.setDurationSeconds(seconds);
+        result.setRequests(requests);
+        result.setErrors(errors.sum());
+        result.setThroughput(requests / seconds);
+        result.setP50Micros(micros(histogram.getValueAtPercentile(50)));
+        result.setP99Micros(micros(histogram.getValueAtPercentile(99)));
+        result.setP999Micros(micros(histogram.getValueAtPercentile(99.9)));
+        result.setMaxMicros(micros(histogram.getMaxValue()));
+        result.setMeanMicros(histogram.getMean() / 1000);
+        result.setAllocatedBytes(allocated);
+        result.setAllocationRateMbPerSecond(allocated / seconds / (1024 * 1024));
+        result.setAllocatedBytesPerRequest(requests == 0 ? 0 : allocated / requests);
+        Map<String, Long> counts = new TreeMap<>();
+        statusCounts.forEach((status, count) -> counts.put(String.valueOf(status), count.sum()));
+        result.setStatusCounts(counts);
+        return result;
+    }
+
+    private void drive(String path, Duration duration, Recorder recorder, Map<Integer, LongAdder> statusCounts, LongAdder errors) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        Flux.range(0, concurrency)
+                .flatMap(user -> Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return client.get()
+                            .uri(path)
+                            .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                            .doOnNext(status -> {
+                                recorder.recordValue(Math.min(System.nanoTime() - start, MAX_LATENCY_NANOS));
+                                statusCounts.computeIfAbsent(status, s -> new LongAdder()).increment();
+                            })
+                            .onErrorResume(e -> {
+                                errors.increment();
+                                return Mono.empty();
+                            });
+                }).repeat(() -> System.nanoTime() - deadline < 0), concurrency)
+                .blockLast(duration.plusSeconds(30));
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * 所有存活线程已分配的字节数
+     */
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long allocated : threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 单个场景的压测结果，延迟单位为微秒
+     */
+    @Data
+    static class ScenarioResult {
+
+        private String name;
+
+        private int concurrency;
+
+        private double durationSeconds;
+
+        private long requests;
+
+        private long errors;
+
+        private double throughput;
+
+        private long p50Micros;
+
+        private long p99Micros;
+
+        private long p999Micros;
+
+        private long maxMicros;
+
+        private double meanMicros;
+
+        private long allocatedBytes;
+
+        private double allocationRateMbPerSecond;
+
+        private long allocatedBytesPerRequest;
+
+        private Map<String, Long> statusCounts;
+    }
+}
@@ -0,0 +1,82 @@
+package org.ywb.scgextend.loadtest;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+
+/**
+ * 压测使用的上游服务，运行在同一个进程中，可以随时切换行为
+ *
+ * @author yuwenbo
+ */
+class StubUpstream {
+
+    enum Mode {
+        /**
+         * 立即返回200
+         */
+        HEALTHY,
+        /**
+         * 延迟{@link #slowDelay}后返回200
+         */
+        SLOW,
+        /**
+         * 关闭监听端口，网关连接被拒绝
+         */
+        REFUSE,
+        /**
+         * 返回503
+         */
+        ERROR_5XX
+    }
+
+    private static final String BODY = "{\"id\":1,\"name\":\"user\"}";
+
+    private final int port;
+
+    private final Duration slowDelay;
+
+    private volatile Mode mode = Mode.HEALTHY;
+
+    private DisposableServer server;
+
+    StubUpstream(int port, Duration slowDelay) {
+        this.port = port;
+        this.slowDelay = slowDelay;
+    }
+
+    synchronized void switchTo(Mode mode) {
+        this.mode = mode;
+        if (mode == Mode.REFUSE) {
+            this.stop();
+        } else if (server == null) {
+            server = HttpServer.create()
+                    .host("127.0.0.1")
+                    .port(port)
+                    .handle((request, response) -> {
+                        Mode current = this.mode;
+                        if (current == Mode.ERROR_5XX) {
+                            return response.status(HttpResponseStatus.SERVICE_UNAVAILABLE)
+                                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                    .sendString(Mono.just("{\"error\":\"unavailable\"}"));
+                        }
+                        Mono<String> body = Mono.just(BODY);
+                        return response.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .sendString(current == Mode.SLOW ? body.delayElement(slowDelay) : body);
+                    })
+                    .bindNow();
+        }
+    }
+
+    synchronized void stop() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
+    }
+}
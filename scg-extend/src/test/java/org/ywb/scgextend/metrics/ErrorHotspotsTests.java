@@ -0,0 +1,98 @@
+package org.ywb.scgextend.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ErrorHotspotsTests {
+
+    @Test
+    void histogramQuantilesWithinRelativeError() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+        LogLinearHistogram.Snapshot snapshot = new LogLinearHistogram.Snapshot();
+        histogram.addTo(snapshot);
+
+        assertEquals(100_000, snapshot.count());
+        assertEquals(50_000, snapshot.quantileMicros(0.5), 50_000 * 0.032);
+        assertEquals(99_000, snapshot.quantileMicros(0.99), 99_000 * 0.032);
+        assertEquals(100_000, snapshot.maxMicros(), 100_000 * 0.0625);
+        assertEquals(50_000.5, snapshot.meanMicros(), 0.001);
+        // 超出范围的值记在最后一个桶
+        histogram.record(TimeUnit.DAYS.toNanos(1));
+        assertEquals(LogLinearHistogram.BUCKETS - 1, LogLinearHistogram.bucketOf(LogLinearHistogram.MAX_MICROS));
+    }
+
+    @Test
+    void keepHeavyHittersUnderManyDistinctKeys() {
+        HeavyHitters heavyHitters = new HeavyHitters(32);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 100_000; i++) {
+            if (i % 4 == 0) {
+                heavyHitters.record("user", ConnectException.class, 1000);
+            } else if (i % 4 == 1) {
+                heavyHitters.record("order", IOException.class, 1000);
+            } else {
+                heavyHitters.record("route-" + random.nextInt(1_000_000), IllegalStateException.class, 1000);
+            }
+        }
+
+        assertEquals(32, heavyHitters.capacity());
+        List<HeavyHitters.Entry> entries = heavyHitters.entries();
+        assertTrue(entries.size() <= 32);
+        HeavyHitters.Entry user = entries.stream().filter(e -> "user".equals(e.getFirst())).findFirst().orElseThrow(AssertionError::new);
+        assertTrue(user.getCount() >= 25_000 && user.getCount() - user.getError() <= 25_000);
+        assertTrue(entries.stream().anyMatch(e -> "order".equals(e.getFirst()) && e.getSecond() == IOException.class));
+    }
+
+    @Test
+    void reportTopOffendersAcrossWindows() throws InterruptedException {
+        ErrorHotspotProperties properties = new ErrorHotspotProperties();
+        properties.setWindow(Duration.ofMillis(500));
+        ErrorHotspots errorHotspots = new ErrorHotspots(properties);
+        for (int i = 0; i < 5; i++) {
+            errorHotspots.record("user", ConnectException.class, TimeUnit.MILLISECONDS.toNanos(2));
+        }
+        errorHotspots.record(null, IllegalStateException.class, TimeUnit.MILLISECONDS.toNanos(8));
+
+        ErrorHotspotReport report = errorHotspots.report(1);
+
+        assertEquals(1, report.getRoutes().size());
+        ErrorHotspotReport.Offender user = report.getRoutes().get(0);
+        assertEquals("user", user.getRoute());
+        assertEquals(5, user.getCount());
+        assertEquals(2.0, user.getLatency().getP99(), 2.0 * 0.032);
+        assertEquals(ConnectException.class.getName(), report.getExceptions().get(0).getException());
+        assertEquals(6, report.getTotal().getCount());
+        assertEquals(2, errorHotspots.report(10).getRouteExceptions().size());
+
+        // 进入下一个窗口后上一个窗口仍然计入，两个窗口之后清空
+        Thread.sleep(600);
+        errorHotspots.record("user", ConnectException.class, TimeUnit.MILLISECONDS.toNanos(2));
+        assertEquals(6, errorHotspots.report(1).getRoutes().get(0).getCount());
+        Thread.sleep(1100);
+        assertTrue(errorHotspots.report(1).getRoutes().isEmpty());
+    }
+
+    @Test
+    void disabled() {
+        ErrorHotspotProperties properties = new ErrorHotspotProperties();
+        properties.setEnabled(false);
+        ErrorHotspots errorHotspots = new ErrorHotspots(properties);
+        errorHotspots.record("user", ConnectException.class, 1000);
+
+        ErrorHotspotReport report = errorHotspots.report(10);
+
+        assertFalse(report.isEnabled());
+        assertNull(report.getRoutes());
+    }
+}
@@ -0,0 +1,47 @@
+package org.ywb.scgextend.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.ywb.scgextend.advice.GlobalExceptionHandlerAdvice;
+import org.ywb.scgextend.exceptions.GatewayException;
+
+import java.lang.reflect.Method;
+import java.net.ConnectException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ErrorMetricsTests {
+
+    @Test
+    void tagOverloadedHandlersSeparately() throws NoSuchMethodException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ErrorMetrics errorMetrics = new ErrorMetrics(registry);
+        Method connect = GlobalExceptionHandlerAdvice.class.getMethod("handler", ConnectException.class);
+        Method fallback = GlobalExceptionHandlerAdvice.class.getMethod("handler", Throwable.class);
+
+        errorMetrics.recordInvoke(connect, 1000);
+        errorMetrics.recordInvoke(fallback, 1000);
+
+        assertEquals("GlobalExceptionHandlerAdvice#handler(ConnectException)", ErrorMetrics.handlerName(connect));
+        assertEquals(1, registry.get("scg.gateway.error.invoke").tag("handler", ErrorMetrics.handlerName(connect)).timer().count());
+        assertEquals(1, registry.get("scg.gateway.error.invoke").tag("handler", ErrorMetrics.handlerName(fallback)).timer().count());
+    }
+
+    @Test
+    void countSameExceptionByHandler() throws NoSuchMethodException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ErrorMetrics errorMetrics = new ErrorMetrics(registry);
+        Method gateway = GlobalExceptionHandlerAdvice.class.getMethod("handler", GatewayException.class);
+        Method fallback = GlobalExceptionHandlerAdvice.class.getMethod("handler", Throwable.class);
+
+        // 重新注册前后、fail-fast时同一种异常由不同的处理方法处理
+        errorMetrics.countError("user", GatewayException.class, gateway, "10000");
+        errorMetrics.countError("user", GatewayException.class, fallback, "10000");
+        errorMetrics.countError("user", GatewayException.class, null, "10000");
+        errorMetrics.countError("user", GatewayException.class, null, "10000");
+
+        assertEquals(3, registry.get("scg.gateway.errors").counters().size());
+        assertEquals(1, registry.get("scg.gateway.errors").tag("handler", ErrorMetrics.handlerName(fallback)).counter().count());
+        assertEquals(2, registry.get("scg.gateway.errors").tag("handler", ErrorMetrics.NONE).counter().count());
+    }
+}
@@ -1,67 +0,0 @@
-package org.ywb.scgextend.common;
-
-import org.springframework.beans.BeansException;
-import org.springframework.context.ApplicationContext;
-import org.springframework.context.ApplicationContextAware;
-import org.springframework.stereotype.Component;
-
-import java.lang.annotation.Annotation;
-import java.util.Map;
-@Component
-public class SpringContextHolder implements ApplicationContextAware {
-
-    private static ApplicationContext applicationContext;
-
-    @Override
-    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
-        SpringContextHolder.applicationContext = applicationContext;
-    }
-
-    public static ApplicationContext getApplicationContext() {
-        assertApplicationContext();
-        return applicationContext;
-    }
-
-    /**
-     * 通过实例类型获取实例
-     *
-     * @param requiredType 实例类型
-     * @param <T>          T
-     * @return T
-     */
-    public static <T> T getBean(Class<T> requiredType) {
-        assertApplicationContext();
-        return applicationContext.getBean(requiredType);
-    }
-
-    /**
-     * 通过实例，名称获取实例
-     *
-     * @param beanName 实例名称
-     * @param <T>      T
-     * @return T
-     */
-    @SuppressWarnings("unchecked")
-    public static <T> T getBean(String beanName) {
-        assertApplicationContext();
-        return (T) applicationContext.getBean(beanName);
-    }
-
-    /**
-     * 通过类上的注解获取类
-     *
-     * @param annotation anno
-     * @return map
-     */
-    public static Map<String, Object> getBeansWithAnnotation(Class<? extends Annotation> annotation) {
-        assertApplicationContext();
-        return applicationContext.getBeansWithAnnotation(annotation);
-    }
-
-    private static void assertApplicationContext() {
-        if (SpringContextHolder.applicationContext == null) {
-            throw new RuntimeException("application Context属性为null,请检查是否注入了SpringContextHolder!");
-        }
-    }
-
-}